@@ -0,0 +1,90 @@
+package puzzle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+Lookups in a reached set of 'size' boards, half of them boards that are in it and half that are not, the mix A* sees
+when it checks successors. The boards come from one long seeded Scrambler walk, so they are as clustered as a
+search's.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClosedSetBenchmark {
+    static final int LOOKUPS = 4096;
+
+    @Param({"open", "hashtable"})
+    public String type;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private Main.ClosedSet reached;
+    private long[] lookups;
+
+    @Setup
+    public void setUp(){
+        reached = type.equals("open") ? new Main.OpenAddressingClosedSet(16) : new Main.HashtableClosedSet();
+        Scrambler walks = new Scrambler(4);
+        long[] walk = walk(walks, size * 2);
+        for(int i = 0; i < size; i++){
+            reached.put(walk[i], i);
+        }
+        lookups = new long[LOOKUPS];
+        int next = size;
+        for(int i = 0; i < LOOKUPS; i += 2){
+            lookups[i] = walk[walks.nextInt(size)];
+            //the walk goes on past the boards in the set, skip the ones it comes back to
+            while(reached.get(walk[next]) != Main.ClosedSet.NOT_FOUND){
+                next++;
+            }
+            lookups[i + 1] = walk[next++];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void get(Blackhole blackhole){
+        for(long board : lookups){
+            blackhole.consume(reached.get(board));
+        }
+    }
+
+    //every board of a walk from the final state that, like Scrambler.walk, never takes back its previous move
+    private static long[] walk(Scrambler walks, int length){
+        int[][] neighbours = Main.neighbourTable(Corpus.WIDTH, Corpus.CELLS / Corpus.WIDTH);
+        int[] tiles = new int[Corpus.CELLS];
+        for(int cell = 0; cell < Corpus.CELLS; cell++){
+            tiles[cell] = cell;
+        }
+        long board = Main.pack(tiles);
+        int blank = 0;
+        int previous = Scrambler.NO_MOVE;
+        long[] boards = new long[length];
+        for(int i = 0; i < length; i++){
+            previous = walks.direction(neighbours, blank, previous);
+            int target = neighbours[blank][previous];
+            board = Main.slide(board, blank, target);
+            blank = target;
+            boards[i] = board;
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,115 @@
+package puzzle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Fixed 4x4 start boards for the benchmarks. Each is a Scrambler walk from the final state, kept only when A* says its
+optimal solution is exactly the requested number of moves. The same seed always gives the same boards. fromFile takes
+the boards from a corpus file written by the "corpus" command instead.
+ */
+final class Corpus {
+    static final String FINAL_STATE = "b,1,2,3 4,5,6,7 8,9,10,11 12,13,14,15";
+    static final int WIDTH = 4;
+    static final int CELLS = 16;
+
+    final int[][] tiles;
+    final String[] states; //the boards written for setState
+
+    private Corpus(List<int[]> boards){
+        tiles = boards.toArray(new int[0][]);
+        states = new String[tiles.length];
+        for(int i = 0; i < tiles.length; i++){
+            states[i] = stateString(tiles[i]);
+        }
+    }
+
+    static Corpus scrambles(int optimalMoves, int count, long seed){
+        Scrambler walks = new Scrambler(seed);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Main solver = new Main(new PrintStream(buffer, true));
+        List<int[]> boards = new ArrayList<>();
+        try{
+            solver.execute("setState " + FINAL_STATE); //sets the neighbour table to 4x4
+        }catch (IOException e){
+            throw new UncheckedIOException(e);
+        }
+        int[] finalTiles = new int[CELLS];
+        for(int cell = 0; cell < CELLS; cell++){
+            finalTiles[cell] = cell;
+        }
+        long finalBoard = Main.pack(finalTiles);
+        while(boards.size() < count){
+            //walks a little longer than the target, as the "corpus" command does
+            walks.walk(solver.neighbours, finalBoard, 0, optimalMoves + 2 * walks.nextInt(3));
+            int[] board = tiles(walks.board());
+            buffer.reset();
+            try{
+                solver.execute("setState " + stateString(board));
+                solver.execute("solve A-star h3");
+            }catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+            if(buffer.toString().startsWith("Moves = " + optimalMoves + System.lineSeparator())){
+                boards.add(board);
+            }
+        }
+        return new Corpus(boards);
+    }
+
+    //the first 'count' boards of a 4x4 corpus file whose optimal solution is exactly the requested number of moves
+    static Corpus fromFile(Path file, int optimalMoves, int count) throws IOException {
+        CorpusFile corpus = CorpusFile.map(file);
+        if(corpus.width() != WIDTH || corpus.height() != WIDTH){
+            throw new IOException(file + " does not hold 4x4 boards");
+        }
+        List<int[]> boards = new ArrayList<>();
+        for(int i = 0; i < corpus.size() && boards.size() < count; i++){
+            if(corpus.moves(i) == optimalMoves){
+                boards.add(tiles(corpus.board(i)));
+            }
+        }
+        if(boards.size() < count){
+            throw new IOException(file + " has only " + boards.size() + " boards " + optimalMoves + " moves deep");
+        }
+        return new Corpus(boards);
+    }
+
+    long packed(int i){
+        return Main.pack(tiles[i]);
+    }
+
+    int blank(int i){
+        for(int cell = 0; cell < CELLS; cell++){
+            if(tiles[i][cell] == 0){
+                return cell;
+            }
+        }
+        throw new IllegalStateException("Board without a blank");
+    }
+
+    //the tile in every cell of a packed 4x4 board
+    private static int[] tiles(long packed){
+        int[] board = new int[CELLS];
+        for(int cell = 0; cell < CELLS; cell++){
+            board[cell] = (int) ((packed >>> (4 * cell)) & 0xF);
+        }
+        return board;
+    }
+
+    private static String stateString(int[] board){
+        StringBuilder sb = new StringBuilder();
+        for(int cell = 0; cell < CELLS; cell++){
+            if(cell > 0){
+                sb.append(cell % WIDTH == 0 ? ' ' : ',');
+            }
+            sb.append(board[cell] == 0 ? "b" : String.valueOf(board[cell]));
+        }
+        return sb.toString();
+    }
+}
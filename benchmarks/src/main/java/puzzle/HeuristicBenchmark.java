@@ -0,0 +1,58 @@
+package puzzle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+//full evaluation of a heuristic on a board, as done for every start state and every h3 successor
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+    static final int BOARDS = 256;
+
+    @Param({"h1", "h2", "h3"})
+    public String heuristic;
+
+    private Main main;
+    private int heuristicId;
+    private long[] boards;
+
+    @Setup
+    public void setUp() throws IOException {
+        Corpus corpus = Corpus.scrambles(20, BOARDS, 3);
+        main = new Main(new PrintStream(OutputStream.nullOutputStream()));
+        main.execute("setState " + Corpus.FINAL_STATE);
+        heuristicId = main.parseHeuristic(heuristic);
+        boards = new long[BOARDS];
+        for(int i = 0; i < BOARDS; i++){
+            boards[i] = corpus.packed(i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public void evaluate(Blackhole blackhole){
+        for(long board : boards){
+            blackhole.consume(main.heuristic(board, heuristicId));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package puzzle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+//successor generation as the searches do it: slide the tile into the blank, then update h(n) from the parent's
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeGenerationBenchmark {
+    static final int BOARDS = 256;
+
+    @Param({"h1", "h2", "h3"})
+    public String heuristic;
+
+    private Main main;
+    private int heuristicId;
+    private long[] boards;
+    private int[] blanks;
+    private int[] h;
+
+    @Setup
+    public void setUp() throws IOException {
+        Corpus corpus = Corpus.scrambles(20, BOARDS, 2);
+        main = new Main(new PrintStream(OutputStream.nullOutputStream()));
+        main.execute("setState " + Corpus.FINAL_STATE);
+        heuristicId = main.parseHeuristic(heuristic);
+        boards = new long[BOARDS];
+        blanks = new int[BOARDS];
+        h = new int[BOARDS];
+        for(int i = 0; i < BOARDS; i++){
+            boards[i] = corpus.packed(i);
+            blanks[i] = corpus.blank(i);
+            h[i] = main.heuristic(boards[i], heuristicId);
+        }
+    }
+
+    //one operation is the expansion of one board, 2 to 4 successors
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public void expand(Blackhole blackhole){
+        for(int i = 0; i < BOARDS; i++){
+            int blank = blanks[i];
+            for(int d = 0; d < 4; d++){
+                int target = main.neighbours[blank][d];
+                if(target < 0){
+                    continue;
+                }
+                long next = Main.slide(boards[i], blank, target);
+                blackhole.consume(next);
+                blackhole.consume(main.successorHeuristic(boards[i], next, blank, target, h[i], heuristicId));
+            }
+        }
+    }
+}
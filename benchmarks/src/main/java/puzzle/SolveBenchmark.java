@@ -0,0 +1,62 @@
+package puzzle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+//end to end solve commands, path printing included, on boards 10, 20 and 30 moves from the final state. The boards are
+//generated at setup unless -p corpusFile=<file> names a corpus file to take them from.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+    static final int BOARDS = 8;
+
+    @Param({"10", "20", "30"})
+    public int optimalMoves;
+
+    @Param({"A-star h2", "A-star h3", "IDA* h3", "beam 100"})
+    public String solver;
+
+    @Param({""})
+    public String corpusFile;
+
+    private Main main;
+    private Corpus corpus;
+
+    @Setup
+    public void setUp() throws IOException {
+        corpus = corpusFile.isEmpty() ? Corpus.scrambles(optimalMoves, BOARDS, 1)
+                : Corpus.fromFile(Paths.get(corpusFile), optimalMoves, BOARDS);
+        main = new Main(new PrintStream(OutputStream.nullOutputStream()));
+        main.execute("setState " + Corpus.FINAL_STATE);
+        main.execute("solve " + solver); //builds the pattern database before measuring
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public void solve() throws IOException {
+        for(String state : corpus.states){
+            main.execute("setState " + state);
+            main.execute("solve " + solver);
+        }
+    }
+}
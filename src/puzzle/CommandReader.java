@@ -0,0 +1,85 @@
+package puzzle;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+Reads a command file a line at a time. The file is read from a FileChannel in 1 MB blocks and lines are cut straight
+out of the block, so a file with millions of lines costs a few hundred large reads and one String per line. Lines end
+with \n or \r\n and are decoded as UTF-8 (a \n byte never appears inside a multi-byte character). A line longer than
+the buffer grows it.
+ */
+class CommandReader implements Closeable {
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private boolean endOfFile;
+    private long lineNumber;
+
+    CommandReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.flip(); //nothing read yet
+    }
+
+    //the next line without its line end, or null once the file is used up
+    String readLine() throws IOException {
+        while(true){
+            byte[] bytes = buffer.array();
+            int start = buffer.position();
+            int limit = buffer.limit();
+            for(int i = start; i < limit; i++){
+                if(bytes[i] == '\n'){
+                    buffer.position(i + 1);
+                    return line(bytes, start, i);
+                }
+            }
+            if(endOfFile){
+                if(start == limit){
+                    return null;
+                }
+                buffer.position(limit); //last line, without a line end
+                return line(bytes, start, limit);
+            }
+            fill();
+        }
+    }
+
+    //number of the line readLine returned last, counting from 1
+    long lineNumber(){
+        return lineNumber;
+    }
+
+    private String line(byte[] bytes, int start, int end){
+        lineNumber++;
+        if(end > start && bytes[end - 1] == '\r'){
+            end--;
+        }
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    //keeps the unfinished line at the front of the buffer and reads more behind it
+    private void fill() throws IOException {
+        buffer.compact();
+        if(!buffer.hasRemaining()){
+            ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+        if(channel.read(buffer) == -1){
+            endOfFile = true;
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,122 @@
+package puzzle;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+A binary file of start boards, each with its exact optimal number of moves, written by the "corpus" command:
+    int magic, byte width, byte height, int number of boards
+    for each board: long packed board, byte optimal moves
+Boards are packed like Main packs them, so a corpus covers boards of up to 16 cells. Readers memory map the file and
+read any board by its index without parsing.
+ */
+class CorpusFile {
+    private static final int MAGIC = 0x505A4331; //"PZC1"
+    private static final int HEADER_BYTES = 10;
+    private static final int RECORD_BYTES = 9;
+
+    private final int width;
+    private final int height;
+    private final int size;
+    private final ByteBuffer records;
+
+    private CorpusFile(int width, int height, int size, ByteBuffer records){
+        this.width = width;
+        this.height = height;
+        this.size = size;
+        this.records = records;
+    }
+
+    static boolean isCorpus(Path file) throws IOException {
+        try(DataInputStream in = new DataInputStream(Files.newInputStream(file))){
+            return Files.size(file) >= HEADER_BYTES && in.readInt() == MAGIC;
+        }
+    }
+
+    static CorpusFile map(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC){
+                throw new IOException(file + " is not a corpus file");
+            }
+            int width = buffer.get();
+            int height = buffer.get();
+            int size = buffer.getInt();
+            if(channel.size() != HEADER_BYTES + (long) size * RECORD_BYTES){
+                throw new IOException(file + " is truncated");
+            }
+            return new CorpusFile(width, height, size, buffer);
+        }
+    }
+
+    int width(){
+        return width;
+    }
+
+    int height(){
+        return height;
+    }
+
+    int size(){
+        return size;
+    }
+
+    long board(int i){
+        return records.getLong(HEADER_BYTES + i * RECORD_BYTES);
+    }
+
+    int moves(int i){
+        return records.get(HEADER_BYTES + i * RECORD_BYTES + 8);
+    }
+
+    //streams boards to a new corpus file. The number of boards in the header is filled in by close.
+    static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private int size;
+
+        Writer(Path file, int width, int height) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            buffer.putInt(MAGIC).put((byte) width).put((byte) height).putInt(0);
+        }
+
+        void add(long board, int moves) throws IOException {
+            if(buffer.remaining() < RECORD_BYTES){
+                drain();
+            }
+            buffer.putLong(board).put((byte) moves);
+            size++;
+        }
+
+        int size(){
+            return size;
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try{
+                drain();
+                ByteBuffer count = ByteBuffer.allocate(4).putInt(0, size);
+                channel.write(count, HEADER_BYTES - 4);
+            }finally{
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package puzzle;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+Exact number of moves to the final state for every solvable 3x3 board, found by one breadth first search backwards
+from the final state over all 9!/2 = 181,440 reachable boards. Boards use the same packing as Main: 4 bits per cell,
+cell i in bits 4i..4i+3, blank = 0.
+
+A board is indexed by the cell of its blank times 8!/2 plus the rank of the order its 8 tiles are read in (row-major,
+skipping the blank) halved. On a 3 wide board every solvable tile order is an even permutation, and two permutations
+whose Lehmer ranks differ only in the lowest bit differ by swapping the last two tiles, so exactly one of them is even
+and rank / 2 numbers the even ones without gaps. Distances are at most 31 and take one byte each: 5 bits would save
+66 KB of the 177 KB, not worth a shift and mask on every lookup.
+ */
+class DistanceTable {
+    static final int STATES = 181440;
+    private static final int HALF_TILE_ORDERS = 20160; //8!/2
+    private static final int UNSEEN = 0xFF;
+    private static final int[] FACTORIALS = {5040, 720, 120, 24, 6, 2, 1, 1}; //7! down to 0!
+
+    private static final int[][] NEIGHBOURS = Main.neighbourTable(3, 3);
+
+    private final byte[] distances = new byte[STATES];
+    private final long buildNanos;
+
+    DistanceTable(long finalBoard){
+        long start = System.nanoTime();
+        Arrays.fill(distances, (byte) UNSEEN);
+        long[] queue = new long[STATES];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = finalBoard;
+        distances[index(finalBoard)] = 0;
+        while(head < tail){
+            long board = queue[head++];
+            int distance = distances[index(board)];
+            int blank = blankCell(board);
+            for(int d = 0; d < 4; d++){
+                int target = NEIGHBOURS[blank][d];
+                if(target < 0){
+                    continue;
+                }
+                long next = Main.slide(board, blank, target);
+                int index = index(next);
+                if((distances[index] & 0xFF) == UNSEEN){
+                    distances[index] = (byte) (distance + 1);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        buildNanos = System.nanoTime() - start;
+    }
+
+    int distance(long board){
+        return distances[index(board)];
+    }
+
+    /*
+    Follows strictly decreasing distances to the final state. Every board with distance d > 0 has a neighbour at d - 1,
+    so this takes exactly d steps and never searches. Returns the index into Main's DIRECTIONS of every move.
+     */
+    int[] solve(long board){
+        int[] moves = new int[distance(board)];
+        for(int step = 0; step < moves.length; step++){
+            int blank = blankCell(board);
+            int wanted = moves.length - step - 1;
+            for(int d = 0; d < 4; d++){
+                int target = NEIGHBOURS[blank][d];
+                if(target >= 0 && distance(Main.slide(board, blank, target)) == wanted){
+                    moves[step] = d;
+                    board = Main.slide(board, blank, target);
+                    break;
+                }
+            }
+        }
+        return moves;
+    }
+
+    //up to 'count' different boards exactly 'depth' moves from the final state, picked uniformly from that BFS layer
+    long[] sample(int depth, int count, SplittableRandom random){
+        int[] chosen = new int[count];
+        int seen = 0;
+        for(int index = 0; index < STATES; index++){
+            if(distances[index] != depth){
+                continue;
+            }
+            //reservoir sampling: the i-th board of the layer replaces a chosen one with probability count / i
+            int slot = seen < count ? seen : random.nextInt(seen + 1);
+            if(slot < count){
+                chosen[slot] = index;
+            }
+            seen++;
+        }
+        long[] boards = new long[Math.min(seen, count)];
+        for(int i = 0; i < boards.length; i++){
+            boards[i] = board(chosen[i]);
+        }
+        return boards;
+    }
+
+    long bytes(){
+        return distances.length;
+    }
+
+    long buildMillis(){
+        return buildNanos / 1000000;
+    }
+
+    private static int index(long board){
+        int blank = 0;
+        int rank = 0;
+        int seen = 0; //bit t set once tile t has been read
+        int position = 0;
+        for(int cell = 0; cell < 9; cell++){
+            int tile = (int) ((board >>> (4 * cell)) & 0xF);
+            if(tile == 0){
+                blank = cell;
+            }else{
+                //Lehmer digit: how many smaller tiles are still to come
+                int smallerUnseen = Integer.bitCount(~seen & ((1 << tile) - 2));
+                rank += smallerUnseen * FACTORIALS[position++];
+                seen |= 1 << tile;
+            }
+        }
+        return blank * HALF_TILE_ORDERS + (rank >> 1);
+    }
+
+    //the solvable board with the given index. Of the two tile orders rank / 2 stands for, it is the even permutation,
+    //the one whose Lehmer digits add up to an even number.
+    private static long board(int index){
+        int blank = index / HALF_TILE_ORDERS;
+        int rank = (index % HALF_TILE_ORDERS) * 2;
+        int[] digits = new int[8];
+        int digitSum = 0;
+        for(int position = 0; position < 8; position++){
+            digits[position] = (rank / FACTORIALS[position]) % (8 - position);
+            digitSum += digits[position];
+        }
+        if(digitSum % 2 != 0){
+            digits[6] = 1; //rank + 1: the lowest digit that can change is the second to last, 0 for an even rank
+        }
+        long board = 0;
+        int unused = 0x1FE; //tiles 1 to 8
+        int position = 0;
+        for(int cell = 0; cell < 9; cell++){
+            if(cell == blank){
+                continue;
+            }
+            //the digit-th smallest tile not placed yet
+            int tile = Integer.numberOfTrailingZeros(unused);
+            for(int skip = digits[position++]; skip > 0; skip--){
+                tile = Integer.numberOfTrailingZeros(unused & (-1 << (tile + 1)));
+            }
+            unused &= ~(1 << tile);
+            board |= (long) tile << (4 * cell);
+        }
+        return board;
+    }
+
+    private static int blankCell(long board){
+        for(int cell = 0; cell < 9; cell++){
+            if(((board >>> (4 * cell)) & 0xF) == 0){
+                return cell;
+            }
+        }
+        return -1;
+    }
+}
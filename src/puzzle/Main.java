@@ -0,0 +1,3004 @@
+package puzzle;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+public class Main implements Closeable {
+    //state is a puzzle configuration
+    //puzzle is adjacent to all the possible configurations that can be formed from the current configuration
+    //A star will calculate the f(n) based on heuristic + distance from original state.
+    //That way, we minimize the number of moves that are needed to reach the correct state.
+
+    //Every field that a command can change belongs to one Main instance, a solver session. main() runs a command file
+    //through one session and the batch command gives every worker thread its own.
+
+    //the board being worked on, tile per cell in row-major order with 0 for the blank. Any size is allowed here,
+    //the searches that pack boards into a long check the size themselves.
+    private int[] currentTiles;
+    private int currentBlank;
+    private long finalBoard; //packed final state: tile t belongs in cell t, so the blank belongs top left
+    private int maxNumNodes;
+    private long memoryBudget = DEFAULT_MEMORY_BUDGET; //bytes of search storage, see "maxMemory"
+    private long memoryCeiling = DEFAULT_MEMORY_BUDGET; //the largest budget, lower when sessions share the heap
+    private long timeLimitNanos = Long.MAX_VALUE; //per command, see "deadline"
+    private long solveDeadline = Long.MAX_VALUE; //System.nanoTime() by which the running command has to finish
+    private boolean useHashtableClosedSet; //"closedSet hashtable" switches back to the synchronized Hashtable
+
+    //a board is packed into a long, 4 bits per cell. Cell i (row-major) lives in bits 4i..4i+3.
+    private static final int CELL_BITS = 4;
+    private static final long CELL_MASK = 0xFL;
+    private static final int MAX_PACKED_CELLS = 16;
+    private static final String[] DIRECTIONS = {"up", "down", "left", "right"};
+    private static final int NO_NEIGHBOUR = -1;
+    private static final int TRANSPOSED_MOVE = 4; //added to a stored move when the board was transposed after it
+    private static final int MAX_NODES_REACHED = -2;
+    private static final int MEMORY_BUDGET_REACHED = -3;
+    private static final int DEADLINE_REACHED = -4;
+    private static final int DEADLINE_CHECK_MASK = 1023; //the clock is read once every 1024 nodes
+    //half the heap, so a search stops at its budget before the JVM runs out of memory and the command file goes on
+    private static final long DEFAULT_MEMORY_BUDGET = Runtime.getRuntime().maxMemory() / 2;
+    //board size, set by setGeometry whenever setState is given a board of a different size
+    private int width;
+    private int height;
+    private int cells;
+    //manhattan[tile][cell] = distance from cell to the cell where the tile belongs
+    private int[][] manhattan;
+    //neighbours[cell][d] = cell the blank moves to in direction DIRECTIONS[d], or NO_NEIGHBOUR
+    int[][] neighbours;
+    //transposedCell[cell] = the cell mirrored in the main diagonal, (r, c) to (c, r). Null unless the board is square.
+    private int[] transposedCell;
+    //search storage kept between solves so a warmed up A* does not allocate
+    private NodePool nodePool = new NodePool();
+    private BucketQueue bucketQueue = new BucketQueue(nodePool);
+    private OpenAddressingClosedSet closedTable;
+    private String lastMemoryReport = "No search has been run";
+    private int partialNode; //after an A* deadline, the node that got closest to the goal
+    private final SearchMetrics metrics = new SearchMetrics(); //what the last solve did, see "stats"
+    private PrintStream statsLog; //"stats log <file>" appends the metrics of every solve as a JSON line
+    private SolutionCache solutionCache; //"cache <entries>" turns it on, shared with the sessions of a batch
+    private boolean noFileAccess; //set for the sessions of a TCP server, see SolverServer
+    private String lastPath; //move line printed by the last printPath, what the cache stores
+    private Scrambler scrambler = new Scrambler(System.nanoTime()); //"randomizeState <n> <seed>" reseeds it
+    private static final int H1 = 1; //number of wrong tiles
+    private static final int H2 = 2; //manhattan distance
+    private static final int H3 = 3; //additive pattern database
+    private static final int MAX_PATTERN_STATES = 1 << 25; //bytes used while building one pattern group
+    private static final int MIN_BEAM_CHUNK = 256; //fewer parents than this are not worth handing to another thread
+    private static final double MAX_WEIGHT = 100; //weighted f(n) indexes the open list's buckets, so it is kept small
+    private PatternDatabase patternDatabase; //loaded the first time h3 is used on this board size
+    //read-only tables shared by every solver in the process
+    private static final ConcurrentHashMap<String, PatternDatabase> patternDatabases = new ConcurrentHashMap<>();
+    private static DistanceTable distanceTable; //built the first time the oracle is used
+    private PrintStream out; //where results go, System.out or the buffer of the batch entry being solved
+    //command opcodes, found once per line by looking the command up in OPCODES
+    private static final int SET_STATE = 0;
+    private static final int PRINT_STATE = 1;
+    private static final int MOVE = 2;
+    private static final int RANDOMIZE_STATE = 3;
+    private static final int SOLVE_A_STAR = 4;
+    private static final int SOLVE_ORACLE = 5;
+    private static final int CHECK_ORACLE = 6;
+    private static final int SOLVE_PA_STAR = 7;
+    private static final int BENCHMARK_PA_STAR = 8;
+    private static final int SOLVE_IDA_STAR = 9;
+    private static final int SOLVE_BEAM = 10;
+    private static final int SOLVE_BIDIRECTIONAL = 11;
+    private static final int MAX_NODES = 12;
+    private static final int MAX_MEMORY = 13;
+    private static final int DEADLINE = 14;
+    private static final int MEMORY_REPORT = 15;
+    private static final int CLOSED_SET = 16;
+    private static final int BATCH = 17;
+    private static final int STATS = 18;
+    private static final int CACHE = 19;
+    private static final int CORPUS = 20;
+    private static final int SOLVE_WA_STAR = 21;
+    private static final int SOLVE_ARA_STAR = 22;
+    private static final int CHECK_CLOSED_SET = 23;
+    private static final Map<String, Integer> OPCODES = Map.ofEntries(
+            Map.entry("setState", SET_STATE),
+            Map.entry("printState", PRINT_STATE),
+            Map.entry("move", MOVE),
+            Map.entry("randomizeState", RANDOMIZE_STATE),
+            Map.entry("solve A-star", SOLVE_A_STAR),
+            Map.entry("solve WA-star", SOLVE_WA_STAR),
+            Map.entry("solve ARA-star", SOLVE_ARA_STAR),
+            Map.entry("solve oracle", SOLVE_ORACLE),
+            Map.entry("checkOracle", CHECK_ORACLE),
+            Map.entry("solve PA-star", SOLVE_PA_STAR),
+            Map.entry("benchmark PA-star", BENCHMARK_PA_STAR),
+            Map.entry("solve IDA*", SOLVE_IDA_STAR),
+            Map.entry("solve beam", SOLVE_BEAM),
+            Map.entry("solve bidirectional", SOLVE_BIDIRECTIONAL),
+            Map.entry("maxNodes", MAX_NODES),
+            Map.entry("maxMemory", MAX_MEMORY),
+            Map.entry("deadline", DEADLINE),
+            Map.entry("memoryReport", MEMORY_REPORT),
+            Map.entry("closedSet", CLOSED_SET),
+            Map.entry("checkClosedSet", CHECK_CLOSED_SET),
+            Map.entry("batch", BATCH),
+            Map.entry("stats", STATS),
+            Map.entry("cache", CACHE),
+            Map.entry("corpus", CORPUS));
+
+    //the package-private members are what the JMH benchmarks in benchmarks/ drive directly
+    Main(PrintStream out){
+        this.out = out;
+        maxNumNodes = Integer.MAX_VALUE;
+        setGeometry(3, 3);
+    }
+
+    public static void main(String[] args){
+        if(args.length == 0){
+            System.err.println("Usage: java puzzle.Main <command file>");
+            System.err.println("       java puzzle.Main --serve <port or socket file> [<cache entries>]");
+            return;
+        }
+        if(args[0].equals("--serve") && args.length > 1){
+            try{
+                SolverServer.serve(args[1], args.length > 2 ? Integer.parseInt(args[2]) : 0);
+            }catch (IOException e){
+                e.printStackTrace();
+            }
+            return;
+        }
+        //results go through one 64 KB buffer instead of a write to standard output per line
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        Main solver = new Main(out);
+        try(CommandReader in = new CommandReader(Paths.get(args[0]))){
+            solver.run(in);
+        }catch (IOException e){
+            e.printStackTrace();
+        }finally{
+            solver.close();
+            out.flush();
+        }
+    }
+
+    //runs every line of the file. Blank lines are skipped, and a line that fails prints its error and is skipped.
+    private void run(CommandReader in) throws IOException {
+        String line;
+        while((line = in.readLine()) != null){
+            if(!line.isBlank()){
+                executeLine(line, in.lineNumber());
+            }
+        }
+    }
+
+    //runs one command, printing the error of a command that fails instead of throwing it
+    void executeLine(String line, long lineNumber){
+        try{
+            execute(line);
+        }catch (RuntimeException | IOException e){
+            out.println("Error on line " + lineNumber + ": "
+                    + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+        }
+    }
+
+    //starts this session with a cache other sessions use too, see SolverServer
+    void shareCache(SolutionCache cache){
+        solutionCache = cache;
+    }
+
+    //makes this session one of 'sessions' that search at the same time on its heap, with an equal share of its budget
+    void shareMemory(int sessions){
+        memoryCeiling /= sessions;
+        memoryBudget = Math.min(memoryBudget, memoryCeiling);
+    }
+
+    //makes every command that names a file to read or write fail instead, for clients that must not reach the files
+    void denyFileAccess(){
+        noFileAccess = true;
+    }
+
+    //closes the file "stats log" is writing to, if any
+    @Override
+    public void close(){
+        if(statsLog != null){
+            statsLog.close();
+            statsLog = null;
+        }
+    }
+
+    void execute(String line) throws IOException {
+        int end = commandEnd(line);
+        execute(opcode(line.substring(0, end)), end < line.length() ? line.substring(end + 1) : "");
+    }
+
+    //a command is its first word, or its first two for solve and benchmark ("solve A-star", "benchmark PA-star")
+    private static int commandEnd(String line){
+        int space = line.indexOf(' ');
+        if(space >= 0 && (line.startsWith("solve ") || line.startsWith("benchmark "))){
+            space = line.indexOf(' ', space + 1);
+        }
+        return space < 0 ? line.length() : space;
+    }
+
+    private static int opcode(String command){
+        Integer opcode = OPCODES.get(command);
+        if(opcode == null){
+            throw new IllegalArgumentException("Unknown command " + command);
+        }
+        return opcode;
+    }
+
+    private void execute(int opcode, String arguments) throws IOException {
+        if(noFileAccess && namesFile(opcode, arguments.trim())){
+            throw new IllegalArgumentException(commandName(opcode) + " with a file is not allowed here");
+        }
+        String cacheKey = cacheKey(opcode, arguments);
+        //optimal solves are cached for canonical boards, mirrored when the current board is the other one of the pair
+        boolean transposed = cacheKey != null && sharesTransposeEntry(opcode) && canonicalIsTranspose(pack(currentTiles));
+        if(cacheKey != null){
+            String moves = solutionCache.get(cacheKey);
+            if(moves != null){
+                printCachedPath(transposed ? transposePath(moves) : moves);
+                return;
+            }
+            lastPath = null;
+        }
+        long solvesBefore = metrics.solves();
+        solveDeadline = timeLimitNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + timeLimitNanos;
+        switch(opcode){
+            case SET_STATE:
+                setState(arguments);
+                break;
+            case PRINT_STATE:
+                printState();
+                break;
+            case MOVE:
+                move(arguments);
+                break;
+            case RANDOMIZE_STATE:
+                randomizeState(arguments);
+                break;
+            case SOLVE_A_STAR:
+                aStarSearch(arguments);
+                break;
+            case SOLVE_WA_STAR:
+                weightedAStarSearch(arguments);
+                break;
+            case SOLVE_ARA_STAR:
+                araStarSearch(arguments);
+                break;
+            case SOLVE_ORACLE:
+                oracleSearch();
+                break;
+            case CHECK_ORACLE:
+                checkOracle(arguments);
+                break;
+            case SOLVE_PA_STAR:
+                parallelAStarSearch(arguments);
+                break;
+            case BENCHMARK_PA_STAR:
+                benchmark(arguments);
+                break;
+            case SOLVE_IDA_STAR:
+                idaStarSearch(arguments);
+                break;
+            case SOLVE_BEAM:
+                beamSearch(arguments);
+                break;
+            case SOLVE_BIDIRECTIONAL:
+                bidirectionalSearch();
+                break;
+            case MAX_NODES:
+                maxNodes(arguments);
+                break;
+            case MAX_MEMORY:
+                maxMemory(arguments);
+                break;
+            case DEADLINE:
+                deadline(arguments);
+                break;
+            case MEMORY_REPORT:
+                memoryReport();
+                break;
+            case CLOSED_SET:
+                closedSet(arguments);
+                break;
+            case CHECK_CLOSED_SET:
+                checkClosedSet(arguments);
+                break;
+            case BATCH:
+                batch(arguments);
+                break;
+            case STATS:
+                stats(arguments.trim());
+                break;
+            case CACHE:
+                cache(arguments.trim());
+                break;
+            case CORPUS:
+                corpus(arguments);
+                break;
+        }
+        if(statsLog != null && metrics.solves() != solvesBefore){
+            statsLog.println(metrics.json());
+        }
+        if(cacheKey != null && lastPath != null && metrics.solves() != solvesBefore && metrics.solved()){
+            solutionCache.put(cacheKey, transposed ? transposePath(lastPath) : lastPath);
+        }
+    }
+
+    /*
+    The cache key of a solve of the current board, or null when the cache is off or the command is not cached. A hit
+    prints only "Moves = n" and the move line, so solves that print more than their path are left out: IDA* prints a
+    line per bound and ARA-star a path per weight.
+     */
+    private String cacheKey(int opcode, String arguments){
+        if(solutionCache == null || cells > MAX_PACKED_CELLS){
+            return null;
+        }
+        switch(opcode){
+            case SOLVE_A_STAR:
+            case SOLVE_WA_STAR:
+            case SOLVE_ORACLE:
+            case SOLVE_PA_STAR:
+            case SOLVE_BEAM:
+            case SOLVE_BIDIRECTIONAL:
+                long board = pack(currentTiles);
+                if(sharesTransposeEntry(opcode) && canonicalIsTranspose(board)){
+                    board = transpose(board);
+                }
+                return SolutionCache.key(width, height, board, (commandName(opcode) + " " + arguments).trim());
+            default:
+                return null;
+        }
+    }
+
+    /*
+    Whether a board and its transpose share one cache entry under the canonical board. Only for the exact solvers: the
+    mirrored optimal path is as short as any other. Beam search and weighted A* break ties by the order they generate
+    successors in, which the transpose changes, so they can answer the two boards of a pair differently (beam search
+    may solve only one of them, weighted A* find paths of different lengths) and are cached per board.
+     */
+    private static boolean sharesTransposeEntry(int opcode){
+        return opcode == SOLVE_A_STAR || opcode == SOLVE_ORACLE || opcode == SOLVE_PA_STAR
+                || opcode == SOLVE_BIDIRECTIONAL;
+    }
+
+    //whether the command reads or writes a file named in its arguments
+    private static boolean namesFile(int opcode, String arguments){
+        switch(opcode){
+            case BATCH:
+            case CORPUS:
+                return true;
+            case STATS:
+                return arguments.startsWith("log ") && !arguments.equals("log off");
+            case CACHE:
+                return arguments.startsWith("save") || arguments.startsWith("load");
+            default:
+                return false;
+        }
+    }
+
+    private static String commandName(int opcode){
+        for(Map.Entry<String, Integer> entry : OPCODES.entrySet()){
+            if(entry.getValue() == opcode){
+                return entry.getKey();
+            }
+        }
+        throw new IllegalArgumentException("Unknown opcode " + opcode);
+    }
+
+    /*
+    "batch <file> <threads> <command>" solves every start state in the file (one per line, written as for setState)
+    with the given solve command on a fork-join pool. Every worker thread runs its own Main, a copy of this session's
+    settings, so no search state is shared. Results are printed in input order, followed by the throughput.
+     */
+    private void batch(String arguments) throws IOException {
+        String[] parts = arguments.split(" ", 3);
+        List<String> starts = new ArrayList<>();
+        if(CorpusFile.isCorpus(Paths.get(parts[0]))){
+            CorpusFile corpus = CorpusFile.map(Paths.get(parts[0]));
+            int[] tiles = new int[corpus.width() * corpus.height()];
+            for(int i = 0; i < corpus.size(); i++){
+                for(int cell = 0; cell < tiles.length; cell++){
+                    tiles[cell] = tileAt(corpus.board(i), cell);
+                }
+                starts.add(boardString(tiles, corpus.width()));
+            }
+        }else{
+            for(String start : Files.readAllLines(Paths.get(parts[0]))){
+                if(!start.isBlank()){
+                    starts.add(start);
+                }
+            }
+        }
+        int threads = Integer.parseInt(parts[1]);
+        int end = commandEnd(parts[2]);
+        int opcode = opcode(parts[2].substring(0, end));
+        String command = end < parts[2].length() ? parts[2].substring(end + 1) : "";
+        String[] results = new String[starts.size()];
+        ThreadLocal<Main> workers = ThreadLocal.withInitial(() -> copySettings(threads));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long startTime = System.nanoTime();
+        try{
+            pool.submit(() -> IntStream.range(0, starts.size()).parallel()
+                    .forEach(i -> results[i] = workers.get().solveIsolated(starts.get(i), opcode, command))).get();
+        }catch (InterruptedException | ExecutionException e){
+            throw new IllegalStateException("Batch solve failed", e);
+        }finally{
+            pool.shutdown();
+        }
+        long nanos = System.nanoTime() - startTime;
+        for(String result : results){
+            out.print(result);
+        }
+        out.println("Solved " + starts.size() + " puzzles in " + nanos / 1000000 + " ms ("
+                + String.format(Locale.ROOT, "%.1f", starts.size() * 1e9 / Math.max(nanos, 1)) + " puzzles/sec) on " + threads + " threads");
+    }
+
+    //a fresh session with this session's settings, one of 'sessions' that search at the same time on one heap
+    private Main copySettings(int sessions){
+        Main copy = new Main(out);
+        copy.maxNumNodes = maxNumNodes;
+        copy.memoryBudget = memoryBudget;
+        copy.memoryCeiling = memoryCeiling;
+        copy.shareMemory(sessions);
+        copy.timeLimitNanos = timeLimitNanos;
+        copy.useHashtableClosedSet = useHashtableClosedSet;
+        copy.solutionCache = solutionCache;
+        return copy;
+    }
+
+    //runs one batch entry on this session and returns everything it printed. An invalid entry only fails itself.
+    private String solveIsolated(String start, int opcode, String arguments){
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        out = new PrintStream(buffer);
+        try{
+            setState(start);
+            execute(opcode, arguments);
+        }catch (RuntimeException | IOException e){
+            out.println("Error: " + e.getMessage());
+        }
+        out.flush();
+        return buffer.toString();
+    }
+
+    //sets the board size and resets the current state to the final state of that size
+    private void setGeometry(int w, int h){
+        width = w;
+        height = h;
+        cells = w * h;
+        manhattan = new int[cells][cells];
+        for(int tile = 0; tile < cells; tile++){
+            for(int cell = 0; cell < cells; cell++){
+                manhattan[tile][cell] = Math.abs(tile / w - cell / w) + Math.abs(tile % w - cell % w);
+            }
+        }
+        neighbours = neighbourTable(w, h);
+        transposedCell = w == h ? new int[cells] : null;
+        for(int cell = 0; transposedCell != null && cell < cells; cell++){
+            transposedCell[cell] = (cell % w) * w + cell / w;
+        }
+        currentTiles = new int[cells];
+        for(int cell = 0; cell < cells; cell++){
+            currentTiles[cell] = cell;
+        }
+        currentBlank = 0;
+        finalBoard = cells <= MAX_PACKED_CELLS ? pack(currentTiles) : 0;
+        patternDatabase = null; //the tables belong to one board size
+    }
+
+    /*
+    Rows are separated by spaces, e.g. "142 358 67b". Boards with more than 10 cells separate the tiles of a row with
+    commas, e.g. "1,2,3,4 5,6,7,8 9,10,11,12 13,14,15,b". Any letter, or 0, is the blank. The board size is taken from
+    the input.
+     */
+    private void setState(String state){
+        String[] rows = state.trim().split("\\s+");
+        int w = rows[0].contains(",") ? rows[0].split(",").length : rows[0].length();
+        int[] tiles = new int[w * rows.length];
+        boolean[] seen = new boolean[tiles.length];
+        int blank = -1;
+        int cell = 0;
+        for(String row : rows){
+            String[] entries = row.contains(",") ? row.split(",") : row.split("");
+            if(entries.length != w){
+                throw new NumberFormatException("Every row of the puzzle must have the same number of tiles.");
+            }
+            for(String entry : entries){
+                if(Character.isLetter(entry.charAt(0))){
+                    blank = cell;
+                }else{
+                    tiles[cell] = Integer.parseInt(entry);
+                    if(tiles[cell] == 0){
+                        blank = cell;
+                    }
+                }
+                if(tiles[cell] < 0 || tiles[cell] >= tiles.length || seen[tiles[cell]]){
+                    throw new NumberFormatException("Every tile from 1 to " + (tiles.length - 1) + " and one blank must appear exactly once.");
+                }
+                seen[tiles[cell]] = true;
+                cell++;
+            }
+        }
+        if(blank == -1){
+            throw new NumberFormatException("The puzzle needs a blank.");
+        }
+        if(!checkValidState(tiles, w)){
+            throw new NumberFormatException("This is not a solvable state. Please only set the puzzle to a solvable state.");
+        }
+        if(w != width || rows.length != height){
+            setGeometry(w, rows.length);
+        }
+        currentTiles = tiles;
+        currentBlank = blank;
+    }
+
+    /*
+    A move left or right never changes the order the tiles are read in. A move up or down carries one tile past
+    width - 1 others and changes the blank's row by one. On odd widths that keeps the parity of the inversions, on even
+    widths it keeps the parity of inversions + blank row. The final state has no inversions and the blank in row 0.
+     */
+    private static boolean checkValidState(int[] arr, int w){
+        int inversions = 0;
+        int blankRow = 0;
+        for(int i = 0; i < arr.length; i++){
+            if(arr[i] == 0){
+                blankRow = i / w;
+            }
+            for(int j = i + 1; j < arr.length; j++){
+                if(arr[i] != 0 && arr[j] != 0 && arr[i] > arr[j]){
+                    inversions++;
+                }
+            }
+        }
+        if(w % 2 == 0){
+            inversions += blankRow;
+        }
+        if(inversions % 2 == 0)
+            return true;
+        return false;
+    }
+
+    private void printState(){
+        out.println(boardString(currentTiles));
+    }
+
+    private String boardString(int[] tiles){
+        return boardString(tiles, width);
+    }
+
+    private static String boardString(int[] tiles, int width){
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < tiles.length; i++){
+            if(tiles[i] == 0){
+                sb.append("b");
+            }else{
+                sb.append(tiles[i]);
+            }
+            if(i % width == width - 1){
+                sb.append(" ");
+            }else if(tiles.length > 10){
+                sb.append(",");
+            }
+        }
+        return sb.toString();
+    }
+
+    private void move(String direction){
+        for(int d = 0; d < 4; d++){
+            if(direction.equals(DIRECTIONS[d])){
+                move(d);
+            }
+        }
+    }
+
+    //moves the blank in direction DIRECTIONS[d] if it stays on the board, returns whether it moved
+    private boolean move(int d){
+        int target = neighbours[currentBlank][d];
+        if(target == NO_NEIGHBOUR){
+            return false;
+        }
+        currentTiles[currentBlank] = currentTiles[target];
+        currentTiles[target] = 0;
+        currentBlank = target;
+        return true;
+    }
+
+    //table[cell][d] = cell the blank moves to in direction DIRECTIONS[d] on a w by h board, or NO_NEIGHBOUR
+    static int[][] neighbourTable(int w, int h){
+        int[][] table = new int[w * h][4];
+        for(int cell = 0; cell < w * h; cell++){
+            table[cell][0] = cell / w > 0 ? cell - w : NO_NEIGHBOUR;
+            table[cell][1] = cell / w < h - 1 ? cell + w : NO_NEIGHBOUR;
+            table[cell][2] = cell % w > 0 ? cell - 1 : NO_NEIGHBOUR;
+            table[cell][3] = cell % w < w - 1 ? cell + 1 : NO_NEIGHBOUR;
+        }
+        return table;
+    }
+
+    //moves the tile in cell 'target' into the blank cell. The blank cell holds 0, so the tile only needs to be
+    //masked out of its old cell and or'd into the blank's cell.
+    static long slide(long board, int blank, int target){
+        long tile = (board >>> (CELL_BITS * target)) & CELL_MASK;
+        return (board & ~(CELL_MASK << (CELL_BITS * target))) | (tile << (CELL_BITS * blank));
+    }
+
+    private static int tileAt(long board, int cell){
+        return (int) ((board >>> (CELL_BITS * cell)) & CELL_MASK);
+    }
+
+    /*
+    The board mirrored in the main diagonal with every tile relabelled the same way, tile t becoming transposedCell[t].
+    The final state is its own transpose, so a board and its transpose are equally far from it, and a move of the blank
+    in direction d on one is the move d ^ 2 on the other: up and left swap, down and right swap. Square boards only.
+     */
+    private long transpose(long board){
+        long result = 0;
+        for(int cell = 0; cell < cells; cell++){
+            result |= (long) transposedCell[tileAt(board, cell)] << (CELL_BITS * transposedCell[cell]);
+        }
+        return result;
+    }
+
+    //whether the canonical form of the board, the smaller of it and its transpose, is the transpose
+    private boolean canonicalIsTranspose(long board){
+        return transposedCell != null && Long.compareUnsigned(transpose(board), board) < 0;
+    }
+
+    //a printed move line with every move transposed
+    private static String transposePath(String moves){
+        StringBuilder sb = new StringBuilder();
+        for(String move : moves.trim().split(" ")){
+            if(!move.isEmpty()){
+                sb.append(DIRECTIONS[Arrays.asList(DIRECTIONS).indexOf(move) ^ 2]);
+                sb.append(" ");
+            }
+        }
+        return sb.toString();
+    }
+
+    static long pack(int[] tiles){
+        long board = 0;
+        for(int cell = 0; cell < tiles.length; cell++){
+            board |= (long) tiles[cell] << (CELL_BITS * cell);
+        }
+        return board;
+    }
+
+    private int[] unpack(long board){
+        int[] tiles = new int[cells];
+        for(int cell = 0; cell < cells; cell++){
+            tiles[cell] = tileAt(board, cell);
+        }
+        return tiles;
+    }
+
+    //A-star, beam search and the oracle key their tables on packed boards
+    private boolean checkPackable(String search){
+        if(cells > MAX_PACKED_CELLS){
+            out.println("Error: " + search + " only handles boards of up to " + MAX_PACKED_CELLS + " cells");
+            return false;
+        }
+        return true;
+    }
+
+    //"randomizeState <n> [<seed>]" walks the blank n random steps, see Scrambler. A seed restarts the random sequence.
+    private void randomizeState(String arguments){
+        String[] parts = arguments.trim().split("\\s+");
+        int moves = Integer.parseInt(parts[0]);
+        if(parts.length > 1){
+            scrambler = new Scrambler(Long.parseLong(parts[1]));
+        }
+        if(cells <= MAX_PACKED_CELLS){
+            scrambler.walk(neighbours, pack(currentTiles), currentBlank, moves);
+            currentTiles = unpack(scrambler.board());
+            currentBlank = scrambler.blank();
+            return;
+        }
+        int previous = NodePool.NO_MOVE;
+        for(int i = 0; i < moves; i++){
+            previous = scrambler.direction(neighbours, currentBlank, previous);
+            if(previous == Scrambler.NO_MOVE){
+                break;
+            }
+            move(previous);
+        }
+    }
+
+    /*
+    "corpus <file> <boards per depth> <min depth> <max depth> [<seed>]" writes boards of the current size, sorted by
+    their exact optimal number of moves, to a CorpusFile. On 3x3 boards they are picked uniformly from the layers of
+    the oracle's breadth first search. Larger boards are random walks a little longer than the wanted depth, solved
+    with A* h3 and kept when the depth is one that still needs boards. A depth with fewer boards than asked for
+    (the deepest 3x3 layers hold only a few) is reported.
+     */
+    private void corpus(String arguments) throws IOException {
+        String[] parts = arguments.trim().split("\\s+");
+        if(!checkPackable("A corpus")){
+            return;
+        }
+        int perDepth = Integer.parseInt(parts[1]);
+        int minDepth = Integer.parseInt(parts[2]);
+        int maxDepth = Integer.parseInt(parts[3]);
+        long seed = parts.length > 4 ? Long.parseLong(parts[4]) : System.nanoTime();
+        long startTime = System.nanoTime();
+        int[] found = new int[maxDepth + 1];
+        try(CorpusFile.Writer writer = new CorpusFile.Writer(Paths.get(parts[0]), width, height)){
+            if(width == 3 && height == 3){
+                SplittableRandom random = new SplittableRandom(seed);
+                for(int depth = minDepth; depth <= maxDepth; depth++){
+                    for(long board : distanceTable().sample(depth, perDepth, random)){
+                        writer.add(board, depth);
+                        found[depth]++;
+                    }
+                }
+            }else{
+                Scrambler walks = new Scrambler(seed);
+                //a walk of n moves is solved in n - 2m moves for some m, so walks a little longer than the depth
+                //land on it often. Every depth gets the same number of tries.
+                for(int depth = minDepth; depth <= maxDepth; depth++){
+                    for(int attempt = 0; found[depth] < perDepth && attempt < perDepth * 100; attempt++){
+                        walks.walk(neighbours, finalBoard, 0, depth + 2 * walks.nextInt(3));
+                        int goal = aStar(walks.board(), walks.blank(), H3);
+                        int moves = goal >= 0 ? nodePool.getG(goal) : -1; //-1: node limit or deadline
+                        if(moves == depth){
+                            writer.add(walks.board(), depth);
+                            found[depth]++;
+                        }
+                    }
+                }
+            }
+            out.println("Wrote " + writer.size() + " boards to " + parts[0] + " in "
+                    + (System.nanoTime() - startTime) / 1000000 + " ms");
+        }
+        for(int depth = minDepth; depth <= maxDepth; depth++){
+            if(found[depth] < perDepth){
+                out.println("Only " + found[depth] + " boards found at depth " + depth);
+            }
+        }
+    }
+
+    private void aStarSearch(String heuristic){
+        aStarSearch(heuristic, 1);
+    }
+
+    /*
+    "solve WA-star <heuristic> <weight>": weighted A*, f(n) = g(n) + weight * h(n) rounded down. A weight above 1 makes
+    the search greedier, so it expands far fewer nodes, and the path it finds is at most 'weight' times longer than
+    the optimal one. The weight goes up to MAX_WEIGHT, beyond which the search is already as greedy as it gets.
+     */
+    private void weightedAStarSearch(String arguments){
+        String[] parts = arguments.trim().split("\\s+");
+        double weight = parts.length > 1 ? Double.parseDouble(parts[1]) : 1;
+        if(!(weight >= 1 && weight <= MAX_WEIGHT)){
+            throw new IllegalArgumentException("The weight must be between 1 and " + (int) MAX_WEIGHT);
+        }
+        aStarSearch(parts[0], weight);
+    }
+
+    private void aStarSearch(String heuristic, double weight){
+        if(!checkPackable("A-star")){
+            return;
+        }
+        int heuristicId = parseHeuristic(heuristic);
+        int goal = aStar(pack(currentTiles), currentBlank, heuristicId, weight);
+        if(goal == MAX_NODES_REACHED){
+            out.println("Error: Max Nodes is too small for given problem");
+        }else if(goal == MEMORY_BUDGET_REACHED){
+            continueWithIdaStar(heuristic);
+        }else if(goal == DEADLINE_REACHED){
+            printPartialPath(pathTo(nodePool, partialNode), heuristic(nodePool.getBoard(partialNode), heuristicId));
+        }else if(goal == NodePool.NO_PARENT){
+            out.println("Error: No path to the final state");
+        }else{
+            correctPath(nodePool, goal);
+        }
+    }
+
+    /*
+    Runs A* from the given board and returns the goal node in nodePool (the start node when the board is already the
+    final state), NodePool.NO_PARENT if the frontier ran out,
+    MAX_NODES_REACHED, MEMORY_BUDGET_REACHED or DEADLINE_REACHED. After a deadline, partialNode is the node with the
+    lowest h(n) found, the closest to the goal the search got.
+     */
+    private int aStar(long board, int startBlank, int heuristicId){
+        return aStar(board, startBlank, heuristicId, 1);
+    }
+
+    //A* with f(n) = g(n) + weighted(h(n), weight), see weightedAStarSearch. The pool's f(n) is the weighted one.
+    private int aStar(long board, int startBlank, int heuristicId, double weight){
+        metrics.start(weight == 1 ? "A-star h" + heuristicId : "WA-star h" + heuristicId + " w=" + weight);
+        int generatedNodes = 0;
+        int expanded = 0;
+        int duplicates = 0;
+        int reopened = 0;
+        int peakFrontier = 1;
+        fitStorageToBudget();
+        NodePool pool = nodePool;
+        pool.clear();
+        ClosedSet reached = newClosedSet();
+        BucketQueue frontier = bucketQueue;
+        frontier.clear();
+        int partialH = heuristic(board, heuristicId);
+        int start = pool.add(board, startBlank, 0, weighted(partialH, weight), NodePool.NO_PARENT, NodePool.NO_MOVE);
+        reached.put(board, start);
+        generatedNodes++;
+        //successors are tested when they are generated, so the start board is the one board tested here
+        int goal = partialH == 0 ? start : NodePool.NO_PARENT;
+        if(goal == NodePool.NO_PARENT && overMemoryBudget(pool.bytes() + reached.bytes() + frontier.bytes(),
+                frontier.growth(pool.getF(start), 0))){
+            goal = MEMORY_BUDGET_REACHED; //the budget cannot even hold the storage a search starts with
+        }else{
+            frontier.add(start);
+        }
+        partialNode = start;
+        outerloop:
+        while(goal == NodePool.NO_PARENT && !frontier.isEmpty() && generatedNodes < maxNumNodes){
+            int top = frontier.poll();
+            if(reached.get(pool.getBoard(top)) != top){
+                //stale duplicate, a cheaper copy of this board was added to the frontier after it. Skip it.
+                continue;
+            }
+            expanded++;
+            if((expanded & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > solveDeadline){
+                goal = DEADLINE_REACHED;
+                break;
+            }
+            int blank = pool.getBlank(top);
+            int g = pool.getG(top) + 1;
+            //a weighted f(n) cannot be turned back into h(n)
+            int parentH = weight == 1 ? pool.getF(top) - pool.getG(top) : heuristic(pool.getBoard(top), heuristicId);
+            for(int d = 0; d < 4; d++){
+                int target = neighbours[blank][d];
+                if(target != NO_NEIGHBOUR){//the blank cannot move off the board in this direction
+                    generatedNodes++;
+                    if(generatedNodes >= maxNumNodes)
+                        break outerloop;
+                    board = slide(pool.getBoard(top), blank, target);
+                    int h = successorHeuristic(pool.getBoard(top), board, blank, target, parentH, heuristicId);
+                    if(h == 0){
+                        //found finalState. Done Searching
+                        goal = overMemoryBudget(pool.bytes() + reached.bytes() + frontier.bytes(), pool.growth())
+                                ? MEMORY_BUDGET_REACHED : pool.add(board, target, g, g, top, d);
+                        break outerloop;
+                    }
+                    //checking for duplicates in reached set. Both copies share a board, so they share h(n) and
+                    //comparing g(n) is the same as comparing f(n).
+                    int duplicate = reached.get(board);
+                    if (duplicate == ClosedSet.NOT_FOUND || pool.getG(duplicate) > g){
+                        //no duplicate found, or it has a higher cost than the new version
+                        int f = g + weighted(h, weight);
+                        long growth = pool.growth() + frontier.growth(f, g)
+                                + (duplicate == ClosedSet.NOT_FOUND ? reached.growth() : 0);
+                        if(growth != 0 && overMemoryBudget(pool.bytes() + reached.bytes() + frontier.bytes(), growth)){
+                            goal = MEMORY_BUDGET_REACHED;
+                            break outerloop;
+                        }
+                        if(duplicate != ClosedSet.NOT_FOUND){
+                            reopened++;
+                        }
+                        int node = pool.add(board, target, g, f, top, d);
+                        frontier.add(node);
+                        reached.put(board, node);
+                        peakFrontier = Math.max(peakFrontier, frontier.size);
+                        if(h < partialH){
+                            partialH = h;
+                            partialNode = node;
+                        }
+                    }else{
+                        duplicates++;
+                    }
+                }
+            }
+        }
+        lastMemoryReport = formatMemoryReport(generatedNodes, pool.bytes() + reached.bytes() + frontier.bytes());
+        metrics.generated = generatedNodes;
+        metrics.expanded = expanded;
+        metrics.duplicates = duplicates;
+        metrics.reopened = reopened;
+        metrics.peakFrontier = peakFrontier;
+        metrics.peakClosed = reached.size();
+        if(goal == NodePool.NO_PARENT && generatedNodes >= maxNumNodes){
+            metrics.finish(SearchMetrics.NODE_LIMIT);
+            return MAX_NODES_REACHED;
+        }
+        if(goal == MEMORY_BUDGET_REACHED || goal == DEADLINE_REACHED){
+            metrics.finish(goal == DEADLINE_REACHED ? SearchMetrics.DEADLINE : SearchMetrics.MEMORY_LIMIT);
+            return goal;
+        }
+        metrics.finish(goal == NodePool.NO_PARENT ? SearchMetrics.NOT_SOLVED : pool.getG(goal));
+        return goal;
+    }
+
+    /*
+    weight * h rounded down. Rounding down keeps the bound: the goal is found from a node n with g(goal) = g(n) + 1
+    <= g(n) + weighted(h(n)) <= weight * optimal moves, as h(n) >= 1 on every board but the final one.
+     */
+    private static int weighted(int h, double weight){
+        return (int) (weight * h);
+    }
+
+    /*
+    "solve ARA-star <heuristic> <weight> [<step>]": anytime repairing A*. The first pass is weighted A* and finds a path
+    quickly. Every later pass lowers the weight by 'step' (0.5 unless given) and carries on from where the last one
+    stopped: the frontier is sorted again by the new f(n) and the reached set is kept, so a board is only generated
+    again when a cheaper path to it turns up. A board reached more cheaply after it was expanded in the current pass is
+    held back in 'inconsistent' for the next pass instead of being expanded twice. A pass ends once no frontier node
+    has an f(n) below the best path's length, which makes that path at most 'weight' times the optimal one. Each pass
+    that shortens the path prints it, and the pass with weight 1 proves it optimal. The node limit, the memory budget
+    and the deadline stop the search with the best path found so far.
+     */
+    private void araStarSearch(String arguments){
+        if(!checkPackable("ARA-star")){
+            return;
+        }
+        String[] parts = arguments.trim().split("\\s+");
+        int heuristicId = parseHeuristic(parts[0]);
+        double weight = parts.length > 1 ? Double.parseDouble(parts[1]) : 2;
+        double step = parts.length > 2 ? Double.parseDouble(parts[2]) : 0.5;
+        if(!(weight >= 1 && weight <= MAX_WEIGHT && step > 0)){
+            throw new IllegalArgumentException("ARA-star needs a weight between 1 and " + (int) MAX_WEIGHT
+                    + " and a step above 0");
+        }
+        long board = pack(currentTiles);
+        metrics.start("ARA-star h" + heuristicId);
+        if(board == finalBoard){
+            metrics.finish(0);
+            out.println("Moves = 0");
+            out.println();
+            return;
+        }
+        int generatedNodes = 1;
+        int expanded = 0;
+        int duplicates = 0;
+        int reopened = 0;
+        int peakFrontier = 1;
+        fitStorageToBudget();
+        NodePool pool = nodePool;
+        pool.clear();
+        ClosedSet reached = newClosedSet();
+        ClosedSet expandedThisPass = newExtraClosedSet();
+        BucketQueue frontier = bucketQueue;
+        frontier.clear();
+        int[] inconsistent = new int[16];
+        int inconsistentSize = 0;
+        int start = pool.add(board, currentBlank, 0, weighted(heuristic(board, heuristicId), weight),
+                NodePool.NO_PARENT, NodePool.NO_MOVE);
+        reached.put(board, start);
+        int goal = NodePool.NO_PARENT;
+        int bestG = Integer.MAX_VALUE;
+        int printedG = Integer.MAX_VALUE;
+        int outcome = 0; //stays 0 when the last pass finished
+        long heldBytes = pool.bytes() + reached.bytes() + frontier.bytes() + expandedThisPass.bytes()
+                + inconsistent.length * 4L;
+        if(overMemoryBudget(heldBytes, frontier.growth(pool.getF(start), 0))){
+            outcome = MEMORY_BUDGET_REACHED; //the budget cannot even hold the storage a search starts with
+        }else{
+            frontier.add(start);
+        }
+        long peakBytes = heldBytes;
+        search:
+        while(outcome == 0){
+            while(!frontier.isEmpty() && frontier.minF() < bestG){
+                int top = frontier.poll();
+                long parentBoard = pool.getBoard(top);
+                if(reached.get(parentBoard) != top){
+                    continue; //stale duplicate
+                }
+                expanded++;
+                if((expanded & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > solveDeadline){
+                    outcome = DEADLINE_REACHED;
+                    break search;
+                }
+                if(expandedThisPass.growth() != 0 && overMemoryBudget(pool.bytes() + reached.bytes() + frontier.bytes()
+                        + expandedThisPass.bytes() + inconsistent.length * 4L, expandedThisPass.growth())){
+                    outcome = MEMORY_BUDGET_REACHED;
+                    break search;
+                }
+                expandedThisPass.put(parentBoard, top);
+                int blank = pool.getBlank(top);
+                int g = pool.getG(top) + 1;
+                int parentH = heuristic(parentBoard, heuristicId);
+                for(int d = 0; d < 4; d++){
+                    int target = neighbours[blank][d];
+                    if(target == NO_NEIGHBOUR){
+                        continue;
+                    }
+                    generatedNodes++;
+                    if(generatedNodes >= maxNumNodes){
+                        outcome = MAX_NODES_REACHED;
+                        break search;
+                    }
+                    long next = slide(parentBoard, blank, target);
+                    int duplicate = reached.get(next);
+                    if(duplicate != ClosedSet.NOT_FOUND && pool.getG(duplicate) <= g){
+                        duplicates++;
+                        continue;
+                    }
+                    if(duplicate != ClosedSet.NOT_FOUND){
+                        reopened++;
+                    }
+                    int h = successorHeuristic(parentBoard, next, blank, target, parentH, heuristicId);
+                    int f = g + weighted(h, weight);
+                    //a node goes to the frontier or to 'inconsistent', both are counted
+                    long growth = pool.growth() + frontier.growth(f, g)
+                            + (duplicate == ClosedSet.NOT_FOUND ? reached.growth() : 0)
+                            + (inconsistentSize == inconsistent.length ? inconsistent.length * 8L : 0);
+                    if(growth != 0 && overMemoryBudget(pool.bytes() + reached.bytes() + frontier.bytes()
+                            + expandedThisPass.bytes() + inconsistent.length * 4L, growth)){
+                        outcome = MEMORY_BUDGET_REACHED;
+                        break search;
+                    }
+                    int node = pool.add(next, target, g, f, top, d);
+                    reached.put(next, node);
+                    if(h == 0){
+                        bestG = g; //the duplicate test above only lets a shorter path to the goal through
+                        goal = node;
+                    }else if(expandedThisPass.get(next) != ClosedSet.NOT_FOUND){
+                        if(inconsistentSize == inconsistent.length){
+                            inconsistent = Arrays.copyOf(inconsistent, inconsistentSize * 2);
+                        }
+                        inconsistent[inconsistentSize++] = node;
+                    }else{
+                        frontier.add(node);
+                        peakFrontier = Math.max(peakFrontier, frontier.size + inconsistentSize);
+                    }
+                }
+            }
+            if(goal != NodePool.NO_PARENT && (bestG < printedG || weight == 1)){
+                out.println(weight == 1 ? "Weight = 1.00 (optimal)"
+                        : String.format(Locale.ROOT, "Weight = %.2f (at most %.2f times the optimal moves)", weight, weight));
+                correctPath(pool, goal);
+                printedG = bestG;
+            }
+            if(weight == 1 || goal == NodePool.NO_PARENT){
+                break; //optimal, or the frontier ran out without a path
+            }
+            //next pass: the frontier and the inconsistent nodes, sorted by the lower weight
+            weight = Math.max(1, weight - step);
+            heldBytes = pool.bytes() + reached.bytes() + frontier.bytes() + expandedThisPass.bytes();
+            peakBytes = Math.max(peakBytes, heldBytes + inconsistent.length * 4L);
+            while(!frontier.isEmpty()){
+                int node = frontier.poll();
+                if(reached.get(pool.getBoard(node)) == node){
+                    if(inconsistentSize == inconsistent.length){
+                        if(overMemoryBudget(heldBytes + inconsistent.length * 4L, inconsistent.length * 8L)){
+                            outcome = MEMORY_BUDGET_REACHED;
+                            break search;
+                        }
+                        inconsistent = Arrays.copyOf(inconsistent, inconsistentSize * 2);
+                    }
+                    inconsistent[inconsistentSize++] = node;
+                }
+            }
+            frontier.clear();
+            for(int i = 0; i < inconsistentSize; i++){
+                int node = inconsistent[i];
+                pool.setF(node, pool.getG(node) + weighted(heuristic(pool.getBoard(node), heuristicId), weight));
+                long growth = frontier.growth(pool.getF(node), pool.getG(node));
+                if(growth != 0 && overMemoryBudget(pool.bytes() + reached.bytes() + frontier.bytes()
+                        + expandedThisPass.bytes() + inconsistent.length * 4L, growth)){
+                    outcome = MEMORY_BUDGET_REACHED;
+                    break search;
+                }
+                frontier.add(node);
+            }
+            inconsistentSize = 0;
+            expandedThisPass = newExtraClosedSet();
+            if(overMemoryBudget(pool.bytes() + reached.bytes() + frontier.bytes() + expandedThisPass.bytes()
+                    + inconsistent.length * 4L, 0)){
+                outcome = MEMORY_BUDGET_REACHED;
+            }
+        }
+        lastMemoryReport = formatMemoryReport(generatedNodes, Math.max(peakBytes, pool.bytes() + reached.bytes()
+                + frontier.bytes() + expandedThisPass.bytes() + inconsistent.length * 4L));
+        metrics.generated = generatedNodes;
+        metrics.expanded = expanded;
+        metrics.duplicates = duplicates;
+        metrics.reopened = reopened;
+        metrics.peakFrontier = peakFrontier;
+        metrics.peakClosed = reached.size();
+        String stopped = outcome == MAX_NODES_REACHED ? "Max Nodes reached"
+                : outcome == DEADLINE_REACHED ? "Deadline reached"
+                : "Memory budget of " + memoryBudget + " bytes reached";
+        if(outcome == 0){
+            metrics.finish(goal == NodePool.NO_PARENT ? SearchMetrics.NOT_SOLVED : bestG);
+        }else{
+            metrics.finish(outcome == MAX_NODES_REACHED ? SearchMetrics.NODE_LIMIT
+                    : outcome == DEADLINE_REACHED ? SearchMetrics.DEADLINE : SearchMetrics.MEMORY_LIMIT);
+            if(goal == NodePool.NO_PARENT){
+                out.println("Error: " + stopped + " before a path was found");
+            }else{
+                if(bestG < printedG){
+                    //found during a pass that did not finish, so only the last finished pass's bound holds
+                    out.println(String.format(Locale.ROOT, "Weight = %.2f (pass not finished)", weight));
+                    correctPath(pool, goal);
+                }
+                out.println(stopped + ", keeping the last path");
+            }
+        }
+    }
+
+    //reads the optimal moves straight out of the distance table, no search
+    private void oracleSearch(){
+        if(width != 3 || height != 3){
+            out.println("Error: the oracle only covers 3x3 boards");
+            return;
+        }
+        metrics.start("oracle");
+        int[] moves = distanceTable().solve(pack(currentTiles));
+        metrics.finish(moves.length);
+        Stack<String> stack = new Stack<>();
+        for(int i = moves.length - 1; i >= 0; i--){
+            stack.push(DIRECTIONS[moves[i]]);
+        }
+        printPath(stack);
+    }
+
+    //compares the distance table with A* (h2) on 'count' random solvable boards
+    private void checkOracle(String count){
+        if(width != 3 || height != 3){
+            out.println("Error: the oracle only covers 3x3 boards");
+            return;
+        }
+        DistanceTable table = distanceTable();
+        out.println("Oracle table: " + DistanceTable.STATES + " states, " + table.bytes() + " bytes, built in "
+                + table.buildMillis() + " ms");
+        int checked = 0;
+        for(int i = 0; i < Integer.parseInt(count); i++){
+            Random random = new Random(i);
+            int[] tiles = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+            for(int j = 8; j > 0; j--){
+                int k = random.nextInt(j + 1);
+                int temp = tiles[j];
+                tiles[j] = tiles[k];
+                tiles[k] = temp;
+            }
+            if(!checkValidState(tiles, 3)){
+                //swapping two tiles flips the parity
+                int a = tiles[0] == 0 ? 1 : 0;
+                int b = tiles[8] == 0 ? 7 : 8;
+                int temp = tiles[a];
+                tiles[a] = tiles[b];
+                tiles[b] = temp;
+            }
+            int blank = 0;
+            while(tiles[blank] != 0){
+                blank++;
+            }
+            long board = pack(tiles);
+            int goal = aStar(board, blank, H2);
+            if(goal < 0){
+                continue; //node limit, memory budget or deadline
+            }
+            int moves = nodePool.getG(goal);
+            if(moves != table.distance(board)){
+                out.println("Mismatch on " + boardString(tiles) + ": oracle = "
+                        + table.distance(board) + ", A-star = " + moves);
+                return;
+            }
+            checked++;
+        }
+        out.println("Checked " + checked + " boards against A-star: all move counts agree");
+    }
+
+    private static synchronized DistanceTable distanceTable(){
+        if(distanceTable == null){
+            distanceTable = new DistanceTable(pack(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8}));
+        }
+        return distanceTable;
+    }
+
+    private ClosedSet newClosedSet(){
+        if(useHashtableClosedSet){
+            return new HashtableClosedSet();
+        }
+        //a search can never hold more boards than it generates, nor more than the reachable half of cells! permutations.
+        //On the 8-puzzle that fixes the size up front, larger boards start at 256K boards and grow. Reusing the table
+        //costs a short search little, clear() only empties the slots the last search used.
+        int expected = budgetedBoards(Math.min(Math.min(maxNumNodes, reachableStates()), 1 << 18));
+        if(closedTable == null || !closedTable.fits(expected) || closedTable.bytes() > memoryBudget / 4){
+            closedTable = new OpenAddressingClosedSet(expected);
+        }
+        closedTable.clear();
+        return closedTable;
+    }
+
+    //a second reached set for a search that already holds the one handed out by newClosedSet()
+    private ClosedSet newExtraClosedSet(){
+        return useHashtableClosedSet ? new HashtableClosedSet() : new OpenAddressingClosedSet(budgetedBoards(1 << 12));
+    }
+
+    /*
+    The boards a new open addressing table is sized for, at most 'expected'. Its slots take 14 bytes and there are
+    fewer than 4 per expected board, so under a memory budget the table starts at no more than a quarter of it.
+     */
+    private int budgetedBoards(long expected){
+        return (int) Math.min(expected, memoryBudget / 56 / 4);
+    }
+
+    /*
+    The node pool and frontier are kept between solves, so they stay as large as the largest search so far. A search
+    under a memory budget starts on new ones instead when they take more than a quarter of the budget each.
+     */
+    private void fitStorageToBudget(){
+        if(nodePool.bytes() > memoryBudget / 4 || bucketQueue.bytes() > memoryBudget / 4){
+            nodePool = new NodePool(poolCapacity());
+            bucketQueue = new BucketQueue(nodePool);
+        }
+    }
+
+    //nodes a new node pool starts with: 1024, or fewer when they would take more than a quarter of the memory budget
+    private int poolCapacity(){
+        return (int) Math.max(1, Math.min(NodePool.CAPACITY, Long.highestOneBit(memoryBudget / 4 / 22)));
+    }
+
+    private long reachableStates(){
+        long permutations = 1;
+        for(int i = 2; i <= cells && permutations < Long.MAX_VALUE / i; i++){
+            permutations *= i;
+        }
+        return permutations / 2;
+    }
+
+    //anything that is not h1 or h3 has always meant manhattan distance
+    int parseHeuristic(String heuristic){
+        if(heuristic.equals("h1")){
+            return H1;
+        }else if(heuristic.equals("h3")){
+            patternDatabase(); //build or map the tables before the search starts
+            return H3;
+        }
+        return H2;
+    }
+
+    int heuristic(long board, int heuristic){
+        if(heuristic == H1){
+            return numWrongTiles(board);
+        }else if(heuristic == H3){
+            return patternDatabase().lookup(board);
+        }
+        return manhattanDistance(board);
+    }
+
+    //h(n) of 'board', the successor of 'parentBoard' made by sliding the tile in 'target' into 'blank'
+    int successorHeuristic(long parentBoard, long board, int blank, int target, int parentH, int heuristic){
+        if(heuristic == H3){
+            return patternDatabase().lookup(board);
+        }
+        return parentH + heuristicChange(parentBoard, blank, target, heuristic);
+    }
+
+    //h(n) of a successor minus h(n) of its parent. Only the tile that slides into the blank changes cell, so h1 and h2
+    //move by at most one.
+    private int heuristicChange(long board, int blank, int target, int heuristic){
+        return heuristicChange(tileAt(board, target), blank, target, heuristic);
+    }
+
+    //change in h1 or h2 when 'tile' slides from cell 'target' into the blank cell
+    private int heuristicChange(int tile, int blank, int target, int heuristic){
+        if(heuristic == H1){
+            return (tile == blank ? 0 : 1) - (tile == target ? 0 : 1);
+        }
+        return manhattan[tile][blank] - manhattan[tile][target];
+    }
+
+    private PatternDatabase patternDatabase(){
+        if(patternDatabase == null){
+            patternDatabase = patternDatabases.computeIfAbsent(width + "x" + height, size -> {
+                try{
+                    return PatternDatabase.load(Paths.get("pdb-" + size + ".bin"), width, height, patternGroups());
+                }catch (IOException e){
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return patternDatabase;
+    }
+
+    /*
+    Splits tiles 1..cells-1 into groups of consecutive tiles, as few groups as possible while the search that builds a
+    group's table (cells^(size + 1) bytes) stays under MAX_PATTERN_STATES. Sizes differ by at most one. That is two
+    groups of 4 on 3x3, three groups of 5 on 4x4 and six groups of 4 on 5x5.
+     */
+    private int[][] patternGroups(){
+        int maxSize = 1;
+        while(maxSize < cells - 1 && Math.pow(cells, maxSize + 2) <= MAX_PATTERN_STATES){
+            maxSize++;
+        }
+        int count = (cells - 1 + maxSize - 1) / maxSize;
+        int[][] groups = new int[count][];
+        int tile = 1;
+        for(int i = 0; i < count; i++){
+            groups[i] = new int[(cells - 1) / count + (i < (cells - 1) % count ? 1 : 0)];
+            for(int j = 0; j < groups[i].length; j++){
+                groups[i][j] = tile++;
+            }
+        }
+        return groups;
+    }
+
+    private String formatMemoryReport(int generatedNodes, long bytes){
+        return "Generated nodes = " + generatedNodes + ", peak search memory = " + bytes + " bytes ("
+                + (bytes * 1000000L / Math.max(generatedNodes, 1)) + " bytes per million generated nodes)";
+    }
+
+    /*
+    "stats" prints the metrics of the last solve, "stats json" prints them as one JSON line, "stats log <file>" appends
+    that line to the file after every solve from then on and "stats log off" stops it.
+     */
+    private void stats(String arguments) throws IOException {
+        if(arguments.isEmpty()){
+            out.println(metrics.report());
+        }else if(arguments.equals("json")){
+            out.println(metrics.json());
+        }else if(arguments.startsWith("log ") && !arguments.substring(4).isBlank()){
+            if(statsLog != null){
+                statsLog.close();
+                statsLog = null;
+            }
+            String file = arguments.substring(4).trim();
+            if(!file.equals("off")){
+                statsLog = new PrintStream(new FileOutputStream(file, true), true);
+            }
+        }else{
+            throw new IllegalArgumentException("Usage: stats, stats json, stats log <file> or stats log off");
+        }
+    }
+
+    /*
+    "cache <entries>" keeps up to that many solutions, see SolutionCache. "cache off" turns it off, "cache clear"
+    empties it, "cache stats" prints its counters, and "cache save <file>" and "cache load <file>" write it to a file
+    and read it back.
+     */
+    private void cache(String arguments) throws IOException {
+        String[] parts = arguments.trim().split("\\s+", 2);
+        if(parts[0].isEmpty()){
+            throw new IllegalArgumentException("Usage: cache <entries>, cache off, cache clear, cache stats, "
+                    + "cache save <file> or cache load <file>");
+        }
+        if(parts[0].equals("off")){
+            solutionCache = null;
+            return;
+        }
+        if(Character.isDigit(parts[0].charAt(0))){
+            int entries = Integer.parseInt(parts[0]);
+            if(entries < 1){
+                throw new IllegalArgumentException("The cache needs at least 1 entry, cache off turns it off");
+            }
+            solutionCache = new SolutionCache(entries);
+            return;
+        }
+        if((parts[0].equals("save") || parts[0].equals("load")) && parts.length < 2){
+            throw new IllegalArgumentException("Usage: cache " + parts[0] + " <file>");
+        }
+        if(solutionCache == null){
+            throw new IllegalStateException("The cache is off, turn it on with \"cache <entries>\"");
+        }
+        switch(parts[0]){
+            case "clear":
+                solutionCache.clear();
+                break;
+            case "stats":
+                out.println(solutionCache.report());
+                break;
+            case "save":
+                solutionCache.save(Paths.get(parts[1]));
+                break;
+            case "load":
+                out.println("Loaded " + solutionCache.load(Paths.get(parts[1])) + " cached solutions");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown cache command " + parts[0]);
+        }
+    }
+
+    private void printCachedPath(String moves){
+        int count = 0;
+        for(int i = 0; i < moves.length(); i++){
+            if(moves.charAt(i) == ' '){
+                count++;
+            }
+        }
+        out.println("Moves = " + count);
+        out.println(moves);
+    }
+
+    private void memoryReport(){
+        out.println(lastMemoryReport);
+    }
+
+    private void correctPath(NodePool pool, int node){
+        printPath(pathTo(pool, node));
+    }
+
+    //walks the parent indices of the node pool back to the starting node
+    private static Stack<String> pathTo(NodePool pool, int node){
+        Stack<String> stack = new Stack<>();
+        while(pool.getParent(node) != NodePool.NO_PARENT){
+            stack.push(DIRECTIONS[pool.getMove(node)]);
+            node = pool.getParent(node);
+        }
+        return stack;
+    }
+
+    //a path that stops short of the goal gets a header of its own instead of "Moves = n", so it is never taken for a
+    //solution, and it is not cached
+    private void printPartialPath(Stack<String> stack, int h){
+        out.println("Deadline reached - partial path of " + stack.size() + " moves, ends at a board with h(n) = " + h);
+        out.println(moveLine(stack));
+    }
+
+    private void printPath(Stack<String> stack){
+        //out.println("Starting state = ");
+        //printInput(state);
+        out.println("Moves = " + stack.size());
+        lastPath = moveLine(stack);
+        out.println(lastPath);
+    }
+
+    private static String moveLine(Stack<String> stack){
+        StringBuilder sb = new StringBuilder();
+        while(!stack.isEmpty()){
+            sb.append(stack.pop());
+            sb.append(" ");
+        }
+        return sb.toString();
+    }
+
+    /*
+    Bidirectional breadth first search, forwards from the current state and backwards from the final state. Nodes are
+    added to a pool in the order they are found, so each layer is a range of node indices and no queue is needed. The
+    side with the smaller layer is expanded, one whole layer at a time. Once a layer reaches boards the other side has
+    already found, the shortest of those meetings is an optimal path: every path has to cross that layer.
+
+    On a square board the backward side only keeps canonical boards (see transpose): the final state is its own
+    transpose, so every backward layer holds each board together with its transpose and storing one of the two halves
+    the backward side. A node whose board was transposed on the way stores its move in the transposed frame plus
+    TRANSPOSED_MOVE, and the path back to the final state flips every following move until the next such node.
+     */
+    private void bidirectionalSearch(){
+        if(!checkPackable("Bidirectional search")){
+            return;
+        }
+        long board = pack(currentTiles);
+        metrics.start("bidirectional");
+        if(board == finalBoard){
+            metrics.finish(0);
+            out.println("Moves = 0");
+            out.println();
+            return;
+        }
+        fitStorageToBudget();
+        NodePool[] pools = {nodePool, new NodePool(poolCapacity())};
+        //newClosedSet() hands out the one reused table, so the backward side gets its own
+        ClosedSet[] reached = {newClosedSet(), newExtraClosedSet()};
+        int[] layerStart = new int[2];
+        pools[0].clear();
+        reached[0].put(board, pools[0].add(board, currentBlank, 0, 0, NodePool.NO_PARENT, NodePool.NO_MOVE));
+        reached[1].put(finalBoard, pools[1].add(finalBoard, 0, 0, 0, NodePool.NO_PARENT, NodePool.NO_MOVE));
+        int generatedNodes = 2;
+        int expanded = 0;
+        int duplicates = 0;
+        int peakFrontier = 2;
+        int best = Integer.MAX_VALUE;
+        int[] meeting = new int[2]; //the node of each side where the best path so far crosses
+        boolean meetingTransposed = false; //whether the crossing board is the transpose of the backward node's board
+        int outcome = MAX_NODES_REACHED;
+        if(overMemoryBudget(pools[0].bytes() + pools[1].bytes() + reached[0].bytes() + reached[1].bytes(), 0)){
+            outcome = MEMORY_BUDGET_REACHED;
+        }
+        boolean layerDone = true; //false while a layer is being expanded
+        search:
+        while(best == Integer.MAX_VALUE && outcome != MEMORY_BUDGET_REACHED){
+            int side = pools[0].size - layerStart[0] <= pools[1].size - layerStart[1] ? 0 : 1;
+            NodePool pool = pools[side];
+            NodePool other = pools[1 - side];
+            int layerEnd = pool.size;
+            if(layerStart[side] == layerEnd){
+                break; //this side has run out of boards, there is no path
+            }
+            expanded += layerEnd - layerStart[side];
+            layerDone = false;
+            for(int node = layerStart[side]; node < layerEnd; node++){
+                long parentBoard = pool.getBoard(node);
+                int blank = pool.getBlank(node);
+                int g = pool.getG(node) + 1;
+                int lastMove = pool.getMove(node) == NodePool.NO_MOVE ? NodePool.NO_MOVE : pool.getMove(node) & 3;
+                for(int d = 0; d < 4; d++){
+                    int target = neighbours[blank][d];
+                    if(target == NO_NEIGHBOUR || (d ^ 1) == lastMove){
+                        continue;
+                    }
+                    long next = slide(parentBoard, blank, target);
+                    long mirror = transposedCell != null ? transpose(next) : next;
+                    int nextBlank = target;
+                    int move = d;
+                    if(side == 1 && Long.compareUnsigned(mirror, next) < 0){
+                        mirror = next;
+                        next = transpose(next);
+                        nextBlank = transposedCell[target];
+                        move = (d ^ 2) + TRANSPOSED_MOVE;
+                    }
+                    if(reached[side].get(next) != ClosedSet.NOT_FOUND){
+                        duplicates++;
+                        continue;
+                    }
+                    if(generatedNodes >= maxNumNodes){
+                        outcome = MAX_NODES_REACHED;
+                        break search;
+                    }
+                    long growth = pool.growth() + reached[side].growth();
+                    if(growth != 0 && overMemoryBudget(pools[0].bytes() + pools[1].bytes() + reached[0].bytes()
+                            + reached[1].bytes(), growth)){
+                        outcome = MEMORY_BUDGET_REACHED;
+                        break search;
+                    }
+                    if((generatedNodes & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > solveDeadline){
+                        outcome = DEADLINE_REACHED;
+                        break search;
+                    }
+                    int child = pool.add(next, nextBlank, g, g, node, move);
+                    reached[side].put(next, child);
+                    generatedNodes++;
+                    //a forward board is found on the backward side under its canonical form, a backward board on the
+                    //forward side as itself or as its transpose
+                    boolean transposedMatch = side == 0 && Long.compareUnsigned(mirror, next) < 0;
+                    int match = reached[1 - side].get(transposedMatch ? mirror : next);
+                    if(match == ClosedSet.NOT_FOUND && side == 1 && mirror != next){
+                        transposedMatch = true;
+                        match = reached[0].get(mirror);
+                    }
+                    if(match != ClosedSet.NOT_FOUND && g + other.getG(match) < best){
+                        best = g + other.getG(match);
+                        meeting[side] = child;
+                        meeting[1 - side] = match;
+                        meetingTransposed = transposedMatch;
+                    }
+                }
+            }
+            layerStart[side] = layerEnd;
+            peakFrontier = Math.max(peakFrontier, pools[0].size - layerStart[0] + pools[1].size - layerStart[1]);
+            layerDone = true;
+        }
+        if(!layerDone){
+            //stopped in the middle of a layer, so a meeting found in it may not be the shortest
+            best = Integer.MAX_VALUE;
+        }
+        lastMemoryReport = formatMemoryReport(generatedNodes,
+                pools[0].bytes() + pools[1].bytes() + reached[0].bytes() + reached[1].bytes());
+        metrics.generated = generatedNodes - 2 + duplicates;
+        metrics.expanded = expanded;
+        metrics.duplicates = duplicates;
+        metrics.peakFrontier = peakFrontier;
+        metrics.peakClosed = reached[0].size() + reached[1].size();
+        if(best == Integer.MAX_VALUE && outcome == MEMORY_BUDGET_REACHED){
+            metrics.finish(SearchMetrics.MEMORY_LIMIT);
+            continueWithIdaStar("h2");
+            return;
+        }else if(best == Integer.MAX_VALUE && outcome == DEADLINE_REACHED){
+            metrics.finish(SearchMetrics.DEADLINE);
+            out.println("Error: Deadline reached before the searches met");
+            return;
+        }else if(best == Integer.MAX_VALUE){
+            metrics.finish(SearchMetrics.NODE_LIMIT);
+            out.println("Error: Max Nodes is too small for given problem");
+            return;
+        }
+        metrics.finish(best);
+        //printPath pops the first move first, so the moves after the meeting go on the stack first, from the last one
+        //back. Those moves undo the backward search's moves, in the opposite direction.
+        ArrayList<String> backwards = new ArrayList<>();
+        boolean transposed = meetingTransposed;
+        for(int node = meeting[1]; pools[1].getParent(node) != NodePool.NO_PARENT; node = pools[1].getParent(node)){
+            int move = pools[1].getMove(node);
+            backwards.add(DIRECTIONS[((move & 3) ^ 1) ^ (transposed ? 2 : 0)]);
+            if(move >= TRANSPOSED_MOVE){
+                transposed = !transposed;
+            }
+        }
+        Stack<String> stack = new Stack<>();
+        for(int i = backwards.size() - 1; i >= 0; i--){
+            stack.push(backwards.get(i));
+        }
+        for(int node = meeting[0]; pools[0].getParent(node) != NodePool.NO_PARENT; node = pools[0].getParent(node)){
+            stack.push(DIRECTIONS[pools[0].getMove(node)]);
+        }
+        printPath(stack);
+    }
+
+    //"solve PA-star <heuristic> <threads>"
+    private void parallelAStarSearch(String arguments){
+        if(!checkPackable("PA-star")){
+            return;
+        }
+        String[] parts = arguments.trim().split("\\s+");
+        ParallelAStar search = new ParallelAStar(parseHeuristic(parts[0]), paStarThreads(parts, "solve"));
+        int moves = search.run(pack(currentTiles), currentBlank);
+        if(moves == MAX_NODES_REACHED){
+            out.println("Error: Max Nodes is too small for given problem");
+            return;
+        }else if(moves == MEMORY_BUDGET_REACHED){
+            continueWithIdaStar(parts[0]);
+            return;
+        }else if(moves == DEADLINE_REACHED){
+            out.println("Error: Deadline reached before PA-star proved a path optimal");
+            return;
+        }
+        Stack<String> stack = new Stack<>();
+        for(int i = moves - 1; i >= 0; i--){
+            stack.push(DIRECTIONS[search.path[i]]);
+        }
+        printPath(stack);
+    }
+
+    /*
+    "benchmark PA-star <heuristic> <threads>" times A* against PA-star on the current board, best of 5 runs each. A run
+    that stops on a limit is counted as a failure and left out of the timings.
+     */
+    private void benchmark(String arguments){
+        if(!checkPackable("PA-star")){
+            return;
+        }
+        String[] parts = arguments.trim().split("\\s+");
+        int heuristicId = parseHeuristic(parts[0]);
+        int threads = paStarThreads(parts, "benchmark");
+        long board = pack(currentTiles);
+        long sequential = Long.MAX_VALUE;
+        long parallel = Long.MAX_VALUE;
+        int sequentialMoves = 0;
+        int parallelMoves = 0;
+        int sequentialFailures = 0;
+        int parallelFailures = 0;
+        int sequentialReason = 0;
+        int parallelReason = 0;
+        for(int run = 0; run < 5; run++){
+            long start = System.nanoTime();
+            int goal = aStar(board, currentBlank, heuristicId);
+            long elapsed = System.nanoTime() - start;
+            if(goal < 0){
+                sequentialFailures++;
+                sequentialReason = goal;
+            }else{
+                sequential = Math.min(sequential, elapsed);
+                sequentialMoves = nodePool.getG(goal);
+            }
+            start = System.nanoTime();
+            int moves = new ParallelAStar(heuristicId, threads).run(board, currentBlank);
+            elapsed = System.nanoTime() - start;
+            if(moves < 0){
+                parallelFailures++;
+                parallelReason = moves;
+            }else{
+                parallel = Math.min(parallel, elapsed);
+                parallelMoves = moves;
+            }
+        }
+        printBenchmark("A-star", sequential, sequentialMoves, sequentialFailures, sequentialReason);
+        printBenchmark("PA-star with " + threads + " threads", parallel, parallelMoves, parallelFailures,
+                parallelReason);
+        if(sequentialFailures < 5 && parallelFailures < 5){
+            out.println("Speedup = " + String.format(Locale.ROOT, "%.2f", (double) sequential / Math.max(parallel, 1)));
+        }
+    }
+
+    //"A-star: 120 us, 20 moves", followed by how many of the 5 runs failed and on which limit, if any did
+    private void printBenchmark(String method, long nanos, int moves, int failures, int reason){
+        String limit = reason == MAX_NODES_REACHED ? "node limit"
+                : reason == MEMORY_BUDGET_REACHED ? "memory budget"
+                : reason == DEADLINE_REACHED ? "deadline" : "no solution";
+        if(failures == 5){
+            out.println(method + ": failed in every run (" + limit + ")");
+            return;
+        }
+        String line = method + ": " + nanos / 1000 + " us, " + moves + " moves";
+        if(failures > 0){
+            line += ", failed in " + failures + " of 5 runs (" + limit + ")";
+        }
+        out.println(line);
+    }
+
+    //the thread count of "<heuristic> <threads>", ParallelAStar checks its range
+    private static int paStarThreads(String[] parts, String command){
+        if(parts.length < 2){
+            throw new IllegalArgumentException("Usage: " + command + " PA-star <heuristic> <threads>");
+        }
+        return Integer.parseInt(parts[1]);
+    }
+
+    //once a search that keeps its nodes reaches the memory budget: IDA* needs memory for the current path only
+    private void continueWithIdaStar(String heuristic){
+        out.println("Memory budget of " + memoryBudget + " bytes reached, continuing with IDA*");
+        idaStarSearch(heuristic);
+        lastPath = null; //the reply is more than the path, so it is not cached
+    }
+
+    /*
+    Iterative deepening A*. Each iteration is a depth first search that cuts off any node whose f(n) is above the
+    bound, and the next bound is the smallest f(n) that was cut off. Nothing is kept between nodes except the current
+    path, so memory is O(depth) and boards of any size can be searched.
+     */
+    private void idaStarSearch(String heuristic){
+        int heuristicId = parseHeuristic(heuristic);
+        metrics.start("IDA* h" + heuristicId);
+        IdaStar search = new IdaStar(currentTiles, currentBlank, heuristicId);
+        if(search.h == 0){
+            metrics.finish(0);
+            out.println("Moves = 0");
+            out.println();
+            return;
+        }
+        int bound = search.h;
+        while(true){
+            int next = search.iterate(bound);
+            out.println("Bound = " + bound + ", expanded = " + search.expanded);
+            //IDA* keeps no frontier or reached set, only the current path
+            metrics.expanded += search.expanded;
+            metrics.generated = search.generatedNodes;
+            if(next == IdaStar.FOUND){
+                break;
+            }else if(next == MAX_NODES_REACHED){
+                metrics.finish(SearchMetrics.NODE_LIMIT);
+                out.println("Error: Max Nodes is too small for given problem");
+                return;
+            }else if(next == DEADLINE_REACHED){
+                metrics.finish(SearchMetrics.DEADLINE);
+                Stack<String> stack = new Stack<>();
+                for(int i = search.partialPath.length - 1; i >= 0; i--){
+                    stack.push(DIRECTIONS[search.partialPath[i]]);
+                }
+                printPartialPath(stack, search.partialH);
+                return;
+            }
+            bound = next;
+        }
+        metrics.finish(search.solutionLength);
+        Stack<String> stack = new Stack<>();
+        for(int i = search.solutionLength - 1; i >= 0; i--){
+            stack.push(DIRECTIONS[search.path[i]]);
+        }
+        printPath(stack);
+    }
+
+    /*
+    Greedy beam search on h2. A successor is only kept if it is closer to the goal than its parent, so every layer sits
+    one h(n) lower than the one before and a goal is always h(n) of the start moves away. The k best successors of each
+    layer, by h(n) and then by the order they were generated, become the next layer.
+
+    Memory does not grow with the number of layers: the beam holds k boards, the candidates at most 4k, and each keeps
+    its path as 2 bits per move. Because h(n) falls by one every layer, a board can only be generated twice within the
+    same layer, so a filter of the current layer's boards, cleared every layer, replaces a closed set of every board.
+
+    This is not the search the first version ran. That one kept every board it had reached and, when a layer gave
+    fewer than k new boards, went on a layer deeper before picking the k best of all of them, so its beam mixed
+    depths. Here a layer is always cut to k, and a board is only left out as a repeat within its own layer. The two
+    differ on some boards with a narrow beam: with k = 2, 142 6b7 835 is solved in 10 moves where it used to end in a
+    local minimum, and 142 763 8b5 ends in one where it used to be solved in 11.
+
+    "solve beam <k> <threads>" splits wide layers into chunks of consecutive parents that are expanded on a fork-join
+    pool, see BeamChunk. The result is the same as with one thread.
+     */
+    private void beamSearch(String arguments){
+        if(!checkPackable("Beam search")){
+            return;
+        }
+        String[] parts = arguments.trim().split("\\s+");
+        if(parts[0].isEmpty()){
+            throw new IllegalArgumentException("Usage: solve beam <k> <threads>");
+        }
+        int beamWidth = Integer.parseInt(parts[0]);
+        int threads = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+        if(beamWidth < 1 || threads < 1 || threads > ParallelAStar.MAX_THREADS){
+            throw new IllegalArgumentException("Beam search needs a k of at least 1 and between 1 and "
+                    + ParallelAStar.MAX_THREADS + " threads");
+        }
+        long board = pack(currentTiles);
+        int startH = heuristic(board, H2);
+        metrics.start("beam " + beamWidth);
+        //check if the given state is the goal state
+        if(startH == 0){
+            metrics.finish(0);
+            out.println("Moves = 0");
+            return;
+        }
+        //the two layers swap roles every step, so both are sized for the candidates
+        BeamLayer beam = new BeamLayer(beamWidth * 4, startH);
+        BeamLayer candidates = new BeamLayer(beamWidth * 4, startH);
+        OpenAddressingClosedSet layerBoards = new OpenAddressingClosedSet(beamWidth * 4);
+        int chunkSize = Math.max((beamWidth + threads - 1) / threads, MIN_BEAM_CHUNK);
+        BeamChunk[] chunks = new BeamChunk[threads > 1 && beamWidth > chunkSize ? threads : 0];
+        for(int c = 0; c < chunks.length; c++){
+            chunks[c] = new BeamChunk(new BeamLayer(chunkSize * 4, startH), new OpenAddressingClosedSet(chunkSize * 4));
+        }
+        ForkJoinPool pool = chunks.length > 0 ? new ForkJoinPool(threads) : null;
+        BeamChunk whole = new BeamChunk(candidates, layerBoards);
+        beam.add(board, currentBlank, startH, null, 0, NodePool.NO_MOVE, 0);
+        int generatedNodes = 1;
+        try{
+            for(int depth = 0; generatedNodes < maxNumNodes; depth++){
+                BeamChunk result;
+                if(beam.size <= chunkSize || chunks.length == 0){
+                    whole.expand(beam, 0, beam.size, depth, beamWidth, maxNumNodes - generatedNodes);
+                    result = whole;
+                }else{
+                    result = expandInChunks(pool, chunks, chunkSize, beam, depth, beamWidth,
+                            maxNumNodes - generatedNodes, whole);
+                }
+                metrics.expanded += beam.size;
+                metrics.duplicates += result.duplicates;
+                if(result.goal != BeamChunk.NOT_FOUND && generatedNodes + result.goalGenerated < maxNumNodes){
+                    metrics.generated = generatedNodes - 1 + result.goalGenerated;
+                    metrics.finish(depth + 1);
+                    printPath(result.candidates.path(result.goal, depth + 1));
+                    return;
+                }
+                generatedNodes += result.generated;
+                metrics.generated = generatedNodes - 1;
+                if(generatedNodes >= maxNumNodes){
+                    break;
+                }
+                if(candidates.size == 0){
+                    metrics.finish(SearchMetrics.NOT_SOLVED);
+                    out.println("No solution - local minima found.");
+                    return;
+                }
+                //the layer filter holds exactly the candidates
+                metrics.peakFrontier = Math.max(metrics.peakFrontier, candidates.size);
+                metrics.peakClosed = metrics.peakFrontier;
+                candidates.keepBest(beamWidth);
+                BeamLayer temp = beam;
+                beam = candidates;
+                candidates = temp;
+                whole.candidates = candidates;
+            }
+        }finally{
+            if(pool != null){
+                pool.shutdown();
+            }
+        }
+        metrics.finish(SearchMetrics.NODE_LIMIT);
+        out.println("Error: Max Nodes is too small for given problem");
+    }
+
+    /*
+    Expands chunks of chunkSize parents in parallel, then merges them into 'whole' in chunk order. The merged candidates,
+    goal and node count are exactly those of expanding every parent in order on one thread: a chunk only drops a board
+    when k better ones come before it in the same chunk, and the merge keeps the first copy of every board.
+     */
+    private BeamChunk expandInChunks(ForkJoinPool pool, BeamChunk[] chunks, int chunkSize, BeamLayer beam, int depth,
+                                     int beamWidth, int nodesLeft, BeamChunk whole){
+        int used = (beam.size + chunkSize - 1) / chunkSize;
+        try{
+            pool.submit(() -> IntStream.range(0, used).parallel().forEach(c -> chunks[c].expand(beam, c * chunkSize,
+                    Math.min(beam.size, (c + 1) * chunkSize), depth, beamWidth, nodesLeft))).get();
+        }catch (InterruptedException | ExecutionException e){
+            throw new IllegalStateException("Beam layer expansion failed", e);
+        }
+        whole.candidates.clear();
+        whole.seen.clear();
+        whole.generated = 0;
+        whole.duplicates = 0;
+        whole.goal = BeamChunk.NOT_FOUND;
+        for(int c = 0; c < used; c++){
+            BeamChunk chunk = chunks[c];
+            if(chunk.goal != BeamChunk.NOT_FOUND){
+                //a goal ends the search, so the chunks after it do not count
+                return chunk.offsetBy(whole.generated);
+            }
+            whole.generated += chunk.generated;
+            whole.duplicates += chunk.duplicates;
+            BeamLayer from = chunk.candidates;
+            for(int i = 0; i < from.size; i++){
+                if(whole.seen.get(from.boards[i]) == ClosedSet.NOT_FOUND){
+                    whole.seen.put(from.boards[i], whole.candidates.size);
+                    whole.candidates.copy(from, i);
+                }else{
+                    whole.duplicates++;
+                }
+            }
+        }
+        return whole;
+    }
+
+    private void maxNodes(String n){
+        maxNumNodes = Integer.parseInt(n);
+    }
+
+    //"maxMemory 256m": bytes of node pool, reached set and frontier a search may hold, with an optional k, m or g
+    //suffix (powers of 1024). "maxMemory off" goes back to the default budget, half the heap. A session that shares the
+    //heap with others (see shareMemory) is held to its share.
+    private void maxMemory(String size){
+        if(size.equals("off")){
+            memoryBudget = memoryCeiling;
+            return;
+        }
+        long bytes = 0;
+        if(!size.isEmpty()){
+            char unit = Character.toLowerCase(size.charAt(size.length() - 1));
+            int shift = unit == 'k' ? 10 : unit == 'm' ? 20 : unit == 'g' ? 30 : 0;
+            String digits = shift == 0 ? size : size.substring(0, size.length() - 1);
+            try{
+                bytes = Math.multiplyExact(Long.parseLong(digits), 1L << shift);
+            }catch (NumberFormatException | ArithmeticException e){
+                bytes = 0; //not a number, or more bytes than a long holds
+            }
+        }
+        if(bytes <= 0){
+            throw new IllegalArgumentException("Usage: maxMemory <bytes>[k|m|g] with a size above 0, or maxMemory off");
+        }
+        memoryBudget = Math.min(bytes, memoryCeiling);
+    }
+
+    //"deadline 500": wall-clock milliseconds each command may search for. "deadline off" removes the limit.
+    private void deadline(String millis){
+        timeLimitNanos = millis.equals("off") ? Long.MAX_VALUE : Long.parseLong(millis) * 1000000L;
+    }
+
+    /*
+    Whether growing the search storage by 'growth' bytes while it holds 'heldBytes' would go over the memory budget.
+    A structure grows by copying into larger arrays, so for a moment it holds both: 'growth' is the size of the new
+    arrays. Every search checks before each growth, so the storage it holds never goes over the budget.
+     */
+    private boolean overMemoryBudget(long heldBytes, long growth){
+        return heldBytes + growth > memoryBudget;
+    }
+
+    private void closedSet(String type){
+        if(type.equals("hashtable")){
+            useHashtableClosedSet = true;
+        }else if(type.equals("open")){
+            useHashtableClosedSet = false;
+        }else{
+            throw new IllegalArgumentException("Unknown closed set " + type + ". Use hashtable or open.");
+        }
+    }
+
+    /*
+    "checkClosedSet <count> [<moves>]" solves 'count' seeded random walks of 'moves' steps (30 unless given) from the
+    final state with A* (h2) twice, once on the open addressing table and once on the Hashtable, and compares the move
+    counts. The closedSet setting is left as it was.
+     */
+    private void checkClosedSet(String arguments){
+        if(!checkPackable("A-star")){
+            return;
+        }
+        String[] parts = arguments.trim().split("\\s+");
+        int count = Integer.parseInt(parts[0]);
+        int walkLength = parts.length > 1 ? Integer.parseInt(parts[1]) : 30;
+        boolean hashtable = useHashtableClosedSet;
+        int checked = 0;
+        try{
+            for(int i = 0; i < count; i++){
+                Scrambler walks = new Scrambler(i);
+                walks.walk(neighbours, finalBoard, 0, walkLength);
+                useHashtableClosedSet = false;
+                int goal = aStar(walks.board(), walks.blank(), H2);
+                int openMoves = goal < 0 ? goal : nodePool.getG(goal);
+                useHashtableClosedSet = true;
+                goal = aStar(walks.board(), walks.blank(), H2);
+                int hashtableMoves = goal < 0 ? goal : nodePool.getG(goal);
+                if(openMoves < 0 || hashtableMoves < 0){
+                    continue; //node limit, memory budget or deadline
+                }
+                if(openMoves != hashtableMoves){
+                    out.println("Mismatch on " + boardString(unpack(walks.board())) + ": open addressing = "
+                            + openMoves + ", Hashtable = " + hashtableMoves);
+                    return;
+                }
+                checked++;
+            }
+        }finally{
+            useHashtableClosedSet = hashtable;
+        }
+        out.println("Checked " + checked + " boards against the Hashtable closed set: all move counts agree");
+    }
+
+    /*
+    The reached set of a search, mapping each board to the index of the best node found for it in the node pool. The
+    node carries the best g(n) and the parent index.
+     */
+    interface ClosedSet{
+        int NOT_FOUND = -1;
+
+        int get(long board); //node of the board or NOT_FOUND
+
+        void put(long board, int node);
+
+        int size();
+
+        long bytes(); //memory held by the set
+
+        long growth(); //bytes the next put of a board not in the set allocates, 0 when it does not grow
+    }
+
+    //The original reached set: a synchronized Hashtable. Kept to cross check the open addressing table.
+    static class HashtableClosedSet implements ClosedSet{
+        private final Hashtable<Long, Integer> nodes = new Hashtable<>();
+
+        @Override
+        public int get(long board) {
+            Integer node = nodes.get(board);
+            return node == null ? NOT_FOUND : node;
+        }
+
+        @Override
+        public void put(long board, int node) {
+            nodes.put(board, node);
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+
+        @Override
+        public long bytes() {
+            return nodes.size() * 80L; //rough size of an entry with its boxed Long and Integer
+        }
+
+        @Override
+        public long growth() {
+            return 80;
+        }
+    }
+
+    /*
+    Open addressing table with linear probing over parallel primitive arrays. The capacity is a power of two at least
+    twice the number of boards the search is expected to hold (on the 8-puzzle, all of them), so nothing is allocated
+    per lookup. If a larger board outgrows it, the table doubles and rehashes; the values are node indices, so they
+    stay valid. 0 marks an empty slot since every packed board has a non-zero tile. The slots in use are listed in
+    'used', so clearing the table for the next search costs as much as that search put in it, not the whole capacity.
+     */
+    static class OpenAddressingClosedSet implements ClosedSet{
+        private long[] boards;
+        private int[] nodes;
+        private int[] used; //used[i] = slot of the i-th board put, the table is at most half full
+        private int shift;
+        private int mask;
+        private int size;
+
+        OpenAddressingClosedSet(int expected){
+            allocate(Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1);
+        }
+
+        private void allocate(int capacity){
+            boards = new long[capacity];
+            nodes = new int[capacity];
+            used = new int[capacity / 2];
+            shift = 64 - Integer.numberOfTrailingZeros(capacity);
+            mask = capacity - 1;
+        }
+
+        private boolean fits(int expected){
+            return expected * 2 <= boards.length;
+        }
+
+        private void clear(){
+            for(int i = 0; i < size; i++){
+                boards[used[i]] = 0;
+            }
+            size = 0;
+        }
+
+        private int probe(long board){
+            int slot = (int) ((board * 0x9E3779B97F4A7C15L) >>> shift); //fibonacci hashing
+            while(boards[slot] != 0 && boards[slot] != board){
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow(){
+            long[] oldBoards = boards;
+            int[] oldNodes = nodes;
+            int[] oldUsed = used;
+            allocate(oldBoards.length * 2);
+            for(int i = 0; i < size; i++){
+                int oldSlot = oldUsed[i];
+                int slot = probe(oldBoards[oldSlot]);
+                boards[slot] = oldBoards[oldSlot];
+                nodes[slot] = oldNodes[oldSlot];
+                used[i] = slot;
+            }
+        }
+
+        @Override
+        public int get(long board) {
+            int slot = probe(board);
+            return boards[slot] == 0 ? NOT_FOUND : nodes[slot];
+        }
+
+        @Override
+        public void put(long board, int node) {
+            int slot = probe(board);
+            if(boards[slot] == 0){
+                if(size * 2 >= boards.length){
+                    grow();
+                    slot = probe(board);
+                }
+                boards[slot] = board;
+                used[size++] = slot;
+            }
+            nodes[slot] = node;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long bytes() {
+            return boards.length * 14L; //8 + 4 bytes per slot and 4 per used entry, half as many
+        }
+
+        @Override
+        public long growth() {
+            return size * 2 >= boards.length ? bytes() * 2 : 0;
+        }
+    }
+
+    /*
+    Arena holding every node generated by a search in parallel primitive arrays. A node is an index into the arrays and
+    links to its parent by index, so walking back to the start needs no object references. The arrays only grow
+    (doubling) and are reused by later searches, so after warm-up a search allocates nothing.
+     */
+    private static class NodePool{
+        private static final int NO_PARENT = -1;
+        private static final byte NO_MOVE = -1;
+        private static final int CAPACITY = 1024;
+        private long[] boards;
+        private int[] g;
+        private int[] f;
+        private int[] parents;
+        private byte[] moves; //index into DIRECTIONS of the move from the parent
+        private byte[] blanks;
+        private int size;
+
+        private NodePool(){
+            this(CAPACITY);
+        }
+
+        private NodePool(int capacity){
+            boards = new long[capacity];
+            g = new int[capacity];
+            f = new int[capacity];
+            parents = new int[capacity];
+            moves = new byte[capacity];
+            blanks = new byte[capacity];
+        }
+
+        private void clear(){
+            size = 0;
+        }
+
+        //bytes of the larger arrays the next add allocates, 0 when it does not grow
+        private long growth(){
+            return size == boards.length ? bytes() * 2 : 0;
+        }
+
+        private int add(long board, int blank, int g, int f, int parent, int move){
+            if(size == boards.length){
+                int capacity = size * 2;
+                boards = Arrays.copyOf(boards, capacity);
+                this.g = Arrays.copyOf(this.g, capacity);
+                this.f = Arrays.copyOf(this.f, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                moves = Arrays.copyOf(moves, capacity);
+                blanks = Arrays.copyOf(blanks, capacity);
+            }
+            boards[size] = board;
+            blanks[size] = (byte) blank;
+            this.g[size] = g;
+            this.f[size] = f;
+            parents[size] = parent;
+            moves[size] = (byte) move;
+            return size++;
+        }
+
+        private long getBoard(int node) {
+            return boards[node];
+        }
+
+        private int getBlank(int node) {
+            return blanks[node];
+        }
+
+        private int getG(int node) {
+            return g[node];
+        }
+
+        private int getF(int node) {
+            return f[node];
+        }
+
+        private void setF(int node, int f) {
+            this.f[node] = f;
+        }
+
+        private int getParent(int node) {
+            return parents[node];
+        }
+
+        private int getMove(int node) {
+            return moves[node];
+        }
+
+        private long bytes(){
+            return boards.length * 22L; //8 + 4 + 4 + 4 + 1 + 1 bytes per node
+        }
+    }
+
+    //the successors of a run of consecutive parents of one beam layer, found by one thread
+    private class BeamChunk{
+        private static final int NOT_FOUND = -1;
+        private BeamLayer candidates;
+        private final OpenAddressingClosedSet seen; //boards in candidates
+        private int generated; //successors closer to the goal than their parent
+        private int goal = NOT_FOUND; //index of a final state in candidates
+        private int goalGenerated; //value of generated when the goal was found
+        private int duplicates; //successors already among the candidates
+
+        private BeamChunk(BeamLayer candidates, OpenAddressingClosedSet seen){
+            this.candidates = candidates;
+            this.seen = seen;
+        }
+
+        //expands beam boards [from, to) in order and keeps the best k new boards. Stops at the first final state.
+        private void expand(BeamLayer beam, int from, int to, int depth, int k, int nodesLeft){
+            candidates.clear();
+            seen.clear();
+            generated = 0;
+            duplicates = 0;
+            goal = NOT_FOUND;
+            for(int i = from; i < to && generated < nodesLeft; i++){
+                long parentBoard = beam.boards[i];
+                int blank = beam.blanks[i];
+                for(int d = 0; d < 4; d++){
+                    int target = neighbours[blank][d];
+                    if(target == NO_NEIGHBOUR){
+                        continue;
+                    }
+                    int h = beam.h[i] + heuristicChange(parentBoard, blank, target, H2);
+                    if(h >= beam.h[i]){
+                        continue;
+                    }
+                    generated++;
+                    long next = slide(parentBoard, blank, target);
+                    if(h == 0){
+                        goal = candidates.size;
+                        goalGenerated = generated;
+                        candidates.add(next, target, 0, beam, i, d, depth);
+                        return;
+                    }
+                    if(seen.get(next) == ClosedSet.NOT_FOUND){
+                        seen.put(next, candidates.size);
+                        candidates.add(next, target, h, beam, i, d, depth);
+                    }else{
+                        duplicates++;
+                    }
+                }
+            }
+            candidates.keepBest(k);
+        }
+
+        private BeamChunk offsetBy(int earlierGenerated){
+            goalGenerated += earlierGenerated;
+            return this;
+        }
+    }
+
+    /*
+    One layer of beam search in preallocated arrays. A path is stored as 2 bits per move, 32 moves to a long, and a
+    search of a start with h(n) = h needs exactly h moves, so the arrays never grow.
+     */
+    private static class BeamLayer{
+        private final long[] boards;
+        private final byte[] blanks;
+        private final int[] h;
+        private final int words; //longs of path per board
+        private final long[] paths;
+        private final long[] order; //keepBest sort keys: h(n) in the high half, index in the low half
+        private final long[] keptPaths;
+        private int size;
+
+        private BeamLayer(int capacity, int maxMoves){
+            boards = new long[capacity];
+            blanks = new byte[capacity];
+            h = new int[capacity];
+            words = (maxMoves + 31) / 32;
+            paths = new long[capacity * words];
+            order = new long[capacity];
+            keptPaths = new long[capacity * words];
+        }
+
+        private void clear(){
+            Arrays.fill(paths, 0, size * words, 0);
+            size = 0;
+        }
+
+        //adds a board reached from board 'parent' of 'from' by move 'move', which is move number 'depth' of the path
+        private void add(long board, int blank, int h, BeamLayer from, int parent, int move, int depth){
+            boards[size] = board;
+            blanks[size] = (byte) blank;
+            this.h[size] = h;
+            if(from != null){
+                System.arraycopy(from.paths, parent * from.words, paths, size * words, words);
+                paths[size * words + depth / 32] |= (long) move << (2 * (depth % 32));
+            }
+            size++;
+        }
+
+        private void copy(BeamLayer from, int index){
+            boards[size] = from.boards[index];
+            blanks[size] = from.blanks[index];
+            h[size] = from.h[index];
+            System.arraycopy(from.paths, index * from.words, paths, size * words, words);
+            size++;
+        }
+
+        //moves of the path to the given board, first move on top
+        private Stack<String> path(int index, int moves){
+            Stack<String> stack = new Stack<>();
+            for(int i = moves - 1; i >= 0; i--){
+                stack.push(DIRECTIONS[(int) (paths[index * words + i / 32] >>> (2 * (i % 32))) & 3]);
+            }
+            return stack;
+        }
+
+        //keeps the k boards with the lowest h(n), earlier boards first among equal h(n)
+        private void keepBest(int k){
+            if(size <= k){
+                return;
+            }
+            for(int i = 0; i < size; i++){
+                order[i] = ((long) h[i] << 32) | i;
+            }
+            select(k);
+            Arrays.sort(order, 0, k); //survivors stay in generation order within each h(n)
+            for(int i = 0; i < k; i++){
+                int index = (int) order[i];
+                boards[i] = boards[index];
+                blanks[i] = blanks[index];
+                h[i] = h[index];
+                System.arraycopy(paths, index * words, keptPaths, i * words, words);
+            }
+            System.arraycopy(keptPaths, 0, paths, 0, k * words);
+            Arrays.fill(paths, k * words, size * words, 0);
+            size = k;
+        }
+
+        //quickselect: moves the k smallest keys of order[0, size) into order[0, k)
+        private void select(int k){
+            int low = 0;
+            int high = size - 1;
+            while(low < high){
+                long pivot = order[(low + high) >>> 1];
+                int i = low;
+                int j = high;
+                while(i <= j){
+                    while(order[i] < pivot){
+                        i++;
+                    }
+                    while(order[j] > pivot){
+                        j--;
+                    }
+                    if(i <= j){
+                        long temp = order[i];
+                        order[i++] = order[j];
+                        order[j--] = temp;
+                    }
+                }
+                if(k - 1 <= j){
+                    high = j;
+                }else if(k - 1 >= i){
+                    low = i;
+                }else{
+                    return;
+                }
+            }
+        }
+    }
+
+    /*
+    Open list for integer costs. Nodes go into a bucket per f(n) and, inside it, a LIFO stack per g(n), so add and poll
+    are O(1) apart from skipping empty buckets. poll returns a node with the lowest f(n), breaking ties towards the
+    highest g(n) (the node closest to the goal). A bucket's stacks reach as far as the highest g(n) added to it, not
+    up to f(n): under a weighted f(n) most of that range is never used. The arrays are kept between searches.
+     */
+    private static class BucketQueue{
+        private final NodePool pool;
+        private int[][][] buckets = new int[64][][]; //buckets[f][g] is a stack of nodes
+        private int[][] sizes = new int[64][]; //sizes[f][g] is the height of that stack
+        private int[] counts = new int[64]; //counts[f] is the number of nodes with that f(n)
+        private int minF;
+        private int maxF;
+        private int size;
+        private long bytes = counts.length * 4L; //of counts, sizes and the stacks, see bytes()
+
+        private BucketQueue(NodePool pool){
+            this.pool = pool;
+            clear();
+        }
+
+        private void clear(){
+            for(int f = 0; f <= maxF && f < counts.length; f++){
+                if(counts[f] != 0){
+                    Arrays.fill(sizes[f], 0);
+                    counts[f] = 0;
+                }
+            }
+            minF = Integer.MAX_VALUE;
+            maxF = -1;
+            size = 0;
+        }
+
+        private boolean isEmpty(){
+            return size == 0;
+        }
+
+        private void add(int node){
+            int f = pool.getF(node);
+            int g = pool.getG(node);
+            if(f >= counts.length){
+                int capacity = Math.max(f + 1, counts.length * 2);
+                bytes += (capacity - counts.length) * 4L;
+                buckets = Arrays.copyOf(buckets, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            int length = stacksFor(f, g);
+            if(buckets[f] == null){
+                buckets[f] = new int[length][];
+                sizes[f] = new int[length];
+                bytes += length * 4L;
+            }else if(length > buckets[f].length){
+                bytes += (length - buckets[f].length) * 4L;
+                buckets[f] = Arrays.copyOf(buckets[f], length);
+                sizes[f] = Arrays.copyOf(sizes[f], length);
+            }
+            int[] stack = buckets[f][g];
+            int height = sizes[f][g];
+            if(stack == null || height == stack.length){
+                stack = stack == null ? new int[16] : Arrays.copyOf(stack, height * 2);
+                bytes += stack.length * 4L - height * 4L;
+                buckets[f][g] = stack;
+            }
+            stack[height] = node;
+            sizes[f][g] = height + 1;
+            counts[f]++;
+            size++;
+            minF = Math.min(minF, f);
+            maxF = Math.max(maxF, f);
+        }
+
+        //lowest f(n) in the queue, Integer.MAX_VALUE when it is empty
+        private int minF(){
+            if(size == 0){
+                return Integer.MAX_VALUE;
+            }
+            while(counts[minF] == 0){
+                minF++;
+            }
+            return minF;
+        }
+
+        private int poll(){
+            while(counts[minF] == 0){
+                minF++;
+            }
+            int[] heights = sizes[minF];
+            int g = heights.length - 1;
+            while(heights[g] == 0){
+                g--;
+            }
+            counts[minF]--;
+            size--;
+            return buckets[minF][g][--heights[g]];
+        }
+
+        //the counts, sizes and stack arrays, kept up to date by add
+        private long bytes(){
+            return bytes;
+        }
+
+        //stacks bucket f needs to hold a node with this g(n): at least g + 1, doubling, and never more than f + 1
+        //since h(n) >= 0 means g(n) <= f(n)
+        private int stacksFor(int f, int g){
+            int length = f < buckets.length && buckets[f] != null ? buckets[f].length : 0;
+            return g < length ? length : Math.min(f + 1, Math.max(g + 1, length * 2));
+        }
+
+        //bytes of the new arrays add allocates for a node with this f(n) and g(n), 0 when nothing grows
+        private long growth(int f, int g){
+            long growth = 0;
+            if(f >= counts.length){
+                growth += Math.max(f + 1, counts.length * 2) * 4L;
+            }
+            if(f >= buckets.length || buckets[f] == null){
+                return growth + stacksFor(f, g) * 4L + 16 * 4L;
+            }
+            if(g >= buckets[f].length){
+                return growth + stacksFor(f, g) * 4L + 16 * 4L;
+            }
+            int[] stack = buckets[f][g];
+            if(stack == null){
+                return growth + 16 * 4L;
+            }
+            return sizes[f][g] == stack.length ? growth + stack.length * 8L : growth;
+        }
+    }
+
+    /*
+    Hash distributed parallel A* (HDA*). Every board has an owner thread picked by a hash of the packed board, and only
+    the owner keeps it in its open list and closed set, so the search structures need no locks. A thread that generates
+    a successor it does not own batches it into a record buffer for the owner, and full buffers are handed over through
+    the owner's lock-free ConcurrentLinkedQueue.
+
+    The first goal found becomes the incumbent. Nodes whose f(n) is not below the incumbent are pruned. A thread is idle
+    once its inbox is empty and its open list has nothing below the incumbent. 'active' counts busy threads plus
+    records in flight, so it only reaches 0 when every thread is idle and nothing is left to deliver. At that point no
+    open node can lead to a cheaper goal and the incumbent is optimal.
+
+    The node pools, closed sets and open lists of all threads share the memory budget through 'heldBytes': a thread
+    reserves the bytes of a growth before it makes it. The node limit, the memory budget and the deadline all stop
+    every thread through 'aborted', and 'stopReason' says which one it was.
+     */
+    private class ParallelAStar{
+        private static final int MAX_THREADS = 64;
+        private static final int WORKER_BITS = 6; //a node in another thread's pool is (node << WORKER_BITS) | thread
+        private static final int BATCH = 128; //records per buffer handed to another thread
+        private static final int RECORD = 3; //board, g/h/move/blank, parent
+        private final int heuristicId;
+        private final Worker[] workers;
+        private final AtomicLong active;
+        private final AtomicLong generatedNodes = new AtomicLong();
+        private volatile int best = Integer.MAX_VALUE;
+        private volatile boolean aborted;
+        private volatile int stopReason = MAX_NODES_REACHED; //MEMORY_BUDGET_REACHED or DEADLINE_REACHED when they stop it
+        private final AtomicLong heldBytes = new AtomicLong(); //search storage of every thread
+        private volatile Throwable failure; //the first exception a worker died of, rethrown by run
+        private int goalRef = NodePool.NO_PARENT;
+        private byte[] path;
+
+        private ParallelAStar(int heuristicId, int threads){
+            if(threads < 1 || threads > MAX_THREADS){
+                throw new IllegalArgumentException("PA-star needs between 1 and " + MAX_THREADS + " threads");
+            }
+            this.heuristicId = heuristicId;
+            workers = new Worker[threads];
+            for(int i = 0; i < threads; i++){
+                workers[i] = new Worker(i);
+                heldBytes.addAndGet(workers[i].bytes());
+            }
+            active = new AtomicLong(threads);
+        }
+
+        /*
+        Returns the number of moves in the optimal solution, which is then in 'path', or MAX_NODES_REACHED,
+        MEMORY_BUDGET_REACHED or DEADLINE_REACHED.
+         */
+        private int run(long board, int blank){
+            metrics.start("PA-star h" + heuristicId + " " + workers.length);
+            int h = heuristic(board, heuristicId);
+            if(h == 0){
+                metrics.finish(0);
+                path = new byte[0];
+                return 0;
+            }
+            if(overMemoryBudget(heldBytes.get(), 0)){
+                metrics.finish(SearchMetrics.MEMORY_LIMIT);
+                return MEMORY_BUDGET_REACHED; //the budget cannot even hold the storage a search starts with
+            }
+            workers[owner(board)].insert(board, blank, 0, h, NodePool.NO_PARENT, NodePool.NO_MOVE);
+            Thread[] threads = new Thread[workers.length];
+            for(int i = 0; i < workers.length; i++){
+                threads[i] = new Thread(workers[i], "PA-star-" + i);
+                threads[i].start();
+            }
+            try{
+                for(Thread thread : threads){
+                    thread.join();
+                }
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for PA-star", e);
+            }
+            if(failure != null){
+                metrics.finish(SearchMetrics.NOT_SOLVED);
+                if(failure instanceof RuntimeException){
+                    throw (RuntimeException) failure;
+                }
+                throw new IllegalStateException("PA-star failed: " + failure, failure);
+            }
+            //every thread's open list peaks at a different time, so the sum is an upper bound
+            for(Worker worker : workers){
+                metrics.generated += worker.generated;
+                metrics.expanded += worker.expanded;
+                metrics.duplicates += worker.duplicates;
+                metrics.reopened += worker.reopened;
+                metrics.peakFrontier += worker.peakFrontier;
+                metrics.peakClosed += worker.closed.size();
+                metrics.cpuNanos += worker.cpuNanos;
+            }
+            if(aborted){
+                metrics.finish(stopReason == MEMORY_BUDGET_REACHED ? SearchMetrics.MEMORY_LIMIT
+                        : stopReason == DEADLINE_REACHED ? SearchMetrics.DEADLINE : SearchMetrics.NODE_LIMIT);
+                return stopReason;
+            }
+            if(goalRef == NodePool.NO_PARENT){
+                metrics.finish(SearchMetrics.NODE_LIMIT);
+                return MAX_NODES_REACHED;
+            }
+            metrics.finish(best);
+            //the threads have been joined, so every pool can be read from here
+            path = new byte[best];
+            int ref = goalRef;
+            for(int i = best - 1; i >= 0; i--){
+                NodePool pool = workers[ref & (MAX_THREADS - 1)].pool;
+                int node = ref >>> WORKER_BITS;
+                path[i] = (byte) pool.getMove(node);
+                ref = pool.getParent(node);
+            }
+            return best;
+        }
+
+        private int owner(long board){
+            return (int) (((board * 0x9E3779B97F4A7C15L) >>> 32) % workers.length);
+        }
+
+        //a worker that throws stops the others too, the busy count it held is released so none of them waits on it
+        private synchronized void failed(Throwable e){
+            if(failure == null){
+                failure = e;
+            }
+            aborted = true;
+            active.decrementAndGet();
+        }
+
+        //stops every thread, keeping the first reason given
+        private synchronized void stop(int reason){
+            if(!aborted){
+                stopReason = reason;
+                aborted = true;
+            }
+        }
+
+        private synchronized void foundGoal(int g, int ref){
+            if(g < best){
+                best = g;
+                goalRef = ref;
+            }
+        }
+
+        private class Worker implements Runnable{
+            private final int id;
+            private final NodePool pool = new NodePool();
+            private final OpenAddressingClosedSet closed = new OpenAddressingClosedSet(1 << 12);
+            private final BucketQueue open = new BucketQueue(pool);
+            private final ConcurrentLinkedQueue<long[]> inbox = new ConcurrentLinkedQueue<>();
+            private final long[][] outboxes = new long[workers.length][];
+            private int localGenerated;
+            private long generated;
+            private long expanded;
+            private long duplicates;
+            private long reopened;
+            private int peakFrontier;
+            private long cpuNanos;
+
+            private Worker(int id){
+                this.id = id;
+            }
+
+            @Override
+            public void run() {
+                long cpuStart = SearchMetrics.threadCpuNanos();
+                try{
+                    search();
+                }catch (RuntimeException | Error e){
+                    failed(e); //search only throws while this thread counts as busy
+                }finally{
+                    cpuNanos = SearchMetrics.threadCpuNanos() - cpuStart;
+                }
+            }
+
+            private void search(){
+                while(!aborted){
+                    drainInbox();
+                    if(!open.isEmpty() && open.minF() < best){
+                        expand(open.poll());
+                        continue;
+                    }
+                    flushAll();
+                    if(!inbox.isEmpty()){
+                        continue;
+                    }
+                    //idle: wait for records or for every other thread to go idle too
+                    active.decrementAndGet();
+                    while(inbox.isEmpty()){
+                        if(active.get() == 0 || aborted){
+                            return;
+                        }
+                        Thread.yield(); //gives the core to busy threads when there are more threads than cores
+                    }
+                    active.incrementAndGet();
+                }
+            }
+
+            private void drainInbox(){
+                long[] batch;
+                while((batch = inbox.poll()) != null){
+                    int count = (int) batch[0];
+                    for(int i = 0; i < count; i++){
+                        int at = 1 + i * RECORD;
+                        long meta = batch[at + 1];
+                        insert(batch[at], (int) (meta >>> 40) & 0xFF, (int) meta & 0xFFFF, (int) (meta >>> 16) & 0xFFFF,
+                                (int) batch[at + 2], (int) (meta >>> 32) & 0xFF);
+                    }
+                    active.addAndGet(-count);
+                }
+            }
+
+            //adds a board this thread owns, unless it is already known with a g(n) at least as good
+            private void insert(long board, int blank, int g, int h, int parentRef, int move){
+                if(g + h >= best){
+                    return;
+                }
+                int duplicate = closed.get(board);
+                if(duplicate != ClosedSet.NOT_FOUND && pool.getG(duplicate) <= g){
+                    duplicates++;
+                    return;
+                }
+                long growth = pool.growth() + open.growth(g + h, g) + (duplicate == ClosedSet.NOT_FOUND ? closed.growth() : 0);
+                long before = bytes();
+                if(!reserve(growth)){
+                    return;
+                }
+                if(duplicate != ClosedSet.NOT_FOUND){
+                    reopened++;
+                }
+                int node = pool.add(board, blank, g, g + h, parentRef, move);
+                closed.put(board, node);
+                open.add(node);
+                heldBytes.addAndGet(bytes() - before - growth);
+                peakFrontier = Math.max(peakFrontier, open.size);
+            }
+
+            //the bytes held by this thread's node pool, closed set and open list
+            private long bytes(){
+                return pool.bytes() + closed.bytes() + open.bytes();
+            }
+
+            /*
+            Reserves 'growth' bytes of the shared budget for a growth this thread is about to make, and stops the
+            search when they do not fit. The caller hands back what the growth did not keep once it is done.
+             */
+            private boolean reserve(long growth){
+                //taken before it is checked, so two threads cannot both fit into the same bytes
+                if(growth != 0 && overMemoryBudget(heldBytes.addAndGet(growth) - growth, growth)){
+                    heldBytes.addAndGet(-growth);
+                    stop(MEMORY_BUDGET_REACHED);
+                    return false;
+                }
+                return true;
+            }
+
+            private void expand(int top){
+                long board = pool.getBoard(top);
+                if(closed.get(board) != top){
+                    return; //stale duplicate
+                }
+                expanded++;
+                int blank = pool.getBlank(top);
+                int g = pool.getG(top) + 1;
+                int parentH = pool.getF(top) - pool.getG(top);
+                int ref = (top << WORKER_BITS) | id;
+                for(int d = 0; d < 4; d++){
+                    int target = neighbours[blank][d];
+                    if(target == NO_NEIGHBOUR){
+                        continue;
+                    }
+                    countGenerated();
+                    long next = slide(board, blank, target);
+                    int h = successorHeuristic(board, next, blank, target, parentH, heuristicId);
+                    if(h == 0){
+                        long growth = pool.growth();
+                        long before = bytes();
+                        if(!reserve(growth)){
+                            return;
+                        }
+                        int goal = pool.add(next, target, g, g, ref, d);
+                        heldBytes.addAndGet(bytes() - before - growth);
+                        foundGoal(g, (goal << WORKER_BITS) | id);
+                        continue;
+                    }
+                    int owner = owner(next);
+                    if(owner == id){
+                        insert(next, target, g, h, ref, d);
+                    }else if(g + h < best){
+                        send(owner, next, ((long) target << 40) | ((long) d << 32) | ((long) h << 16) | g, ref);
+                    }
+                }
+                if(pool.size >= 1 << (31 - WORKER_BITS)){
+                    stop(MAX_NODES_REACHED); //node references would overflow
+                }
+            }
+
+            private void countGenerated(){
+                generated++;
+                if(++localGenerated == DEADLINE_CHECK_MASK + 1){
+                    if(generatedNodes.addAndGet(localGenerated) >= maxNumNodes){
+                        stop(MAX_NODES_REACHED);
+                    }else if(System.nanoTime() > solveDeadline){
+                        stop(DEADLINE_REACHED);
+                    }
+                    localGenerated = 0;
+                }
+            }
+
+            private void send(int owner, long board, long meta, int parentRef){
+                long[] batch = outboxes[owner];
+                if(batch == null){
+                    batch = new long[1 + BATCH * RECORD];
+                    outboxes[owner] = batch;
+                }
+                int at = 1 + (int) batch[0] * RECORD;
+                batch[at] = board;
+                batch[at + 1] = meta;
+                batch[at + 2] = parentRef;
+                if(++batch[0] == BATCH){
+                    flush(owner);
+                }
+            }
+
+            private void flush(int owner){
+                long[] batch = outboxes[owner];
+                if(batch != null && batch[0] > 0){
+                    active.addAndGet(batch[0]); //counted before the owner can see it
+                    workers[owner].inbox.add(batch);
+                    outboxes[owner] = null;
+                }
+            }
+
+            private void flushAll(){
+                for(int owner = 0; owner < outboxes.length; owner++){
+                    flush(owner);
+                }
+            }
+        }
+    }
+
+    /*
+    One IDA* search over a single mutable board. A move is made in place before recursing and undone after, h(n) is
+    updated from the tile that moved, and the move that would undo the previous one is never tried. The only allocation
+    is the path array once per iteration.
+     */
+    private class IdaStar{
+        private static final int FOUND = -1;
+        private final int[] tiles;
+        private final int[] positions; //cell of every tile, kept for the pattern database
+        private final int heuristic;
+        private int blank;
+        private int h;
+        private int bound;
+        private byte[] path; //path[g] = move made at depth g
+        private int solutionLength;
+        private int expanded; //nodes expanded in the last iteration
+        private int generatedNodes; //over all iterations, checked against maxNodes
+        private int partialH; //lowest h(n) seen, and the moves that reached it
+        private byte[] partialPath = new byte[0];
+
+        private IdaStar(int[] start, int blank, int heuristic){
+            tiles = start.clone();
+            positions = new int[tiles.length];
+            for(int cell = 0; cell < tiles.length; cell++){
+                positions[tiles[cell]] = cell;
+            }
+            this.blank = blank;
+            this.heuristic = heuristic;
+            if(heuristic == H3){
+                h = patternDatabase().lookup(positions);
+            }else{
+                for(int cell = 0; cell < tiles.length; cell++){
+                    if(tiles[cell] != 0){
+                        h += heuristic == H1 ? (tiles[cell] == cell ? 0 : 1) : manhattan[tiles[cell]][cell];
+                    }
+                }
+            }
+            partialH = h;
+        }
+
+        //returns FOUND, MAX_NODES_REACHED, DEADLINE_REACHED or the bound for the next iteration
+        private int iterate(int bound){
+            this.bound = bound;
+            path = new byte[bound];
+            expanded = 0;
+            return search(0, h, NodePool.NO_MOVE);
+        }
+
+        private int search(int g, int h, int lastMove){
+            int f = g + h;
+            if(f > bound){
+                return f;
+            }
+            if(h == 0){
+                solutionLength = g;
+                return FOUND;
+            }
+            if(h < partialH){
+                partialH = h;
+                partialPath = Arrays.copyOf(path, g);
+            }
+            expanded++;
+            int min = Integer.MAX_VALUE;
+            int from = blank;
+            for(int d = 0; d < 4; d++){
+                int target = neighbours[from][d];
+                if(target == NO_NEIGHBOUR || (lastMove != NodePool.NO_MOVE && d == (lastMove ^ 1))){
+                    continue; //off the board, or straight back to the parent (up/down and left/right differ in bit 0)
+                }
+                if(++generatedNodes >= maxNumNodes){
+                    return MAX_NODES_REACHED;
+                }
+                if((generatedNodes & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > solveDeadline){
+                    return DEADLINE_REACHED;
+                }
+                int tile = tiles[target];
+                //make the move
+                tiles[from] = tile;
+                tiles[target] = 0;
+                positions[tile] = from;
+                positions[0] = target;
+                blank = target;
+                int nextH = heuristic == H3 ? patternDatabase().lookup(positions) : h + heuristicChange(tile, from, target, heuristic);
+                path[g] = (byte) d;
+                int result = search(g + 1, nextH, d);
+                //unmake it
+                tiles[target] = tile;
+                tiles[from] = 0;
+                positions[tile] = target;
+                positions[0] = from;
+                blank = from;
+                if(result < 0){
+                    return result; //FOUND or a limit, bounds are never negative
+                }
+                min = Math.min(min, result);
+            }
+            return min;
+        }
+    }
+
+    //Heuristic 1 for A* Search.
+    private int numWrongTiles(long board){
+        int result = 0;
+        for(int cell = 0; cell < cells; cell++){
+            int tile = tileAt(board, cell);
+            if(tile != 0 && tile != cell){
+                result++;
+            }
+        }
+        return result;
+    }
+
+    //Heuristic 2 for A* Search
+    private int manhattanDistance(long board){
+        int result = 0;
+        for(int cell = 0; cell < cells; cell++){
+            int tile = tileAt(board, cell);
+            if(tile != 0){
+                result += manhattan[tile][cell];
+            }
+        }
+        return result;
+    }
+}
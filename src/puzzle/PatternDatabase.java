@@ -0,0 +1,289 @@
+package puzzle;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+Disjoint additive pattern database heuristic (h3).
+The tiles are split into groups. For every group, the table stores the fewest moves of that group's tiles needed to
+bring them home from any placement of them and the blank, counting only the moves that slide a tile of the group.
+Since no move slides tiles of two groups, the group values can be added and the sum is still a lower bound on the real
+number of moves. A move changes one group's value by at most one and leaves the others alone, so h3 is consistent.
+
+The tables are built once by a backward breadth first search from the final state and written to a binary file:
+    int magic, byte width, byte height, byte number of groups
+    for each group: byte group size, the tiles of the group, then cells^(size + 1) distance bytes
+Later runs memory map the file and skip the build.
+
+On a square board the final state is its own mirror image in the main diagonal (tile at row r, column c moved to row
+c, column r and relabelled the same way), so a board and its mirror image are the same number of moves from the final
+state. The groups are not mirror images of each other, so the two lookups differ and the larger one is used.
+ */
+class PatternDatabase {
+    private static final int MAGIC = 0x50444232; //"PDB2", "PDB1" kept one value per placement
+    private static final int UNSEEN = 0xFF;
+
+    private final int cells;
+    private final int[][] groups;
+    private final int[] offsets; //offset of each group's table in the buffer
+    private final ByteBuffer tables;
+    private final int[] groupOf; //group of each tile, -1 for the blank
+    private final int[] weight; //what a tile adds to its group's table index per cell
+    private final int[] transposed; //cell (or tile) mirrored in the main diagonal, null unless the board is square
+
+    private PatternDatabase(int width, int height, int[][] groups, int[] offsets, ByteBuffer tables){
+        this.cells = width * height;
+        this.groups = groups;
+        this.offsets = offsets;
+        this.tables = tables;
+        groupOf = new int[cells];
+        weight = new int[cells];
+        Arrays.fill(groupOf, -1);
+        for(int i = 0; i < groups.length; i++){
+            for(int j = 0; j < groups[i].length; j++){
+                groupOf[groups[i][j]] = i;
+                weight[groups[i][j]] = power(cells, groups[i].length - 1 - j);
+            }
+        }
+        transposed = width == height ? new int[cells] : null;
+        for(int cell = 0; transposed != null && cell < cells; cell++){
+            transposed[cell] = (cell % width) * width + cell / width;
+        }
+    }
+
+    //maps the database file if it exists, otherwise builds the tables and saves them to the file first
+    static PatternDatabase load(Path file, int width, int height, int[][] groups) throws IOException {
+        if(!Files.exists(file)){
+            write(file, width, height, groups);
+        }
+        int cells = width * height;
+        long expectedBytes = 7; //magic, width, height, number of groups
+        for(int[] group : groups){
+            expectedBytes += 1 + group.length + power(cells, group.length + 1);
+        }
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            if(channel.size() != expectedBytes){
+                throw new IOException(file + " is " + channel.size() + " bytes long, a pattern database for these groups is "
+                        + expectedBytes);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.get() != width || buffer.get() != height || buffer.get() != groups.length){
+                throw new IOException(file + " is not a pattern database for this puzzle");
+            }
+            int[] offsets = new int[groups.length];
+            for(int i = 0; i < groups.length; i++){
+                int size = buffer.get();
+                for(int j = 0; j < size; j++){
+                    if(size != groups[i].length || buffer.get() != groups[i][j]){
+                        throw new IOException(file + " was built for different tile groups");
+                    }
+                }
+                offsets[i] = buffer.position();
+                buffer.position(offsets[i] + power(cells, size + 1));
+            }
+            return new PatternDatabase(width, height, groups, offsets, buffer);
+        }
+    }
+
+    //h3 of a board packed with 4 bits per cell. One pass over the board per group keeps the lookup allocation free.
+    int lookup(long board){
+        int blank = 0;
+        while(((board >>> (4 * blank)) & 0xF) != 0){
+            blank++;
+        }
+        int result = 0;
+        int mirrored = 0;
+        for(int i = 0; i < groups.length; i++){
+            int index = 0;
+            int mirroredIndex = 0;
+            for(int cell = 0; cell < cells; cell++){
+                int tile = (int) ((board >>> (4 * cell)) & 0xF);
+                if(groupOf[tile] == i){
+                    index += cell * weight[tile];
+                }
+                if(transposed != null && groupOf[transposed[tile]] == i){
+                    mirroredIndex += transposed[cell] * weight[transposed[tile]];
+                }
+            }
+            result += tables.get(offsets[i] + index * cells + blank);
+            if(transposed != null){
+                mirrored += tables.get(offsets[i] + mirroredIndex * cells + transposed[blank]);
+            }
+        }
+        return transposed != null ? Math.max(result, mirrored) : result;
+    }
+
+    //h3 given the cell of every tile, the blank's included
+    int lookup(int[] positions){
+        int result = 0;
+        int mirrored = 0;
+        for(int i = 0; i < groups.length; i++){
+            int index = 0;
+            int mirroredIndex = 0;
+            for(int tile : groups[i]){
+                index = index * cells + positions[tile];
+                if(transposed != null){
+                    //in the mirror image, tile sits where its mirror tile's cell is mirrored to
+                    mirroredIndex = mirroredIndex * cells + transposed[positions[transposed[tile]]];
+                }
+            }
+            result += tables.get(offsets[i] + index * cells + positions[0]);
+            if(transposed != null){
+                mirrored += tables.get(offsets[i] + mirroredIndex * cells + transposed[positions[0]]);
+            }
+        }
+        return transposed != null ? Math.max(result, mirrored) : result;
+    }
+
+    /*
+    Builds into a temporary file of its own next to the database and renames it into place, so a process that builds
+    the same database at the same time neither writes into this file nor sees it half written. Whichever rename comes
+    last wins, and both files hold the same tables.
+     */
+    private static void write(Path file, int width, int height, int[][] groups) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp.toFile())))){
+            out.writeInt(MAGIC);
+            out.writeByte(width);
+            out.writeByte(height);
+            out.writeByte(groups.length);
+            for(int[] group : groups){
+                out.writeByte(group.length);
+                for(int tile : group){
+                    out.writeByte(tile);
+                }
+                out.write(build(width, height, group));
+            }
+        }catch (IOException | RuntimeException e){
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try{
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        }catch (AtomicMoveNotSupportedException e){
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /*
+    Backward breadth first search over abstract states: the cells of the group's tiles plus the cell of the blank, all
+    other tiles are indistinguishable. Sliding a group tile costs 1 and sliding any other tile costs 0, so every layer
+    first floods the states it can reach for free before moving on to the next layer. Every abstract state keeps its
+    own value: the smallest over all blank cells would be smaller, but a placement whose tiles wall the blank off from
+    the cell that gives it can jump by more than one in a single move.
+     */
+    private static byte[] build(int width, int height, int[] group){
+        int cells = width * height;
+        int size = group.length;
+        int placements = power(cells, size);
+        byte[] distances = new byte[placements * cells]; //index = placement * cells + blank
+        Arrays.fill(distances, (byte) UNSEEN);
+        int goal = 0;
+        for(int tile : group){
+            goal = goal * cells + tile; //tile t belongs in cell t
+        }
+        int[] layer = {goal * cells}; //the blank belongs in cell 0
+        int layerSize = 1;
+        distances[goal * cells] = 0;
+        int[] stack = new int[1024];
+        int[] next = new int[1024];
+        int[] positions = new int[size];
+        int[] occupant = new int[cells];
+        for(int d = 0; layerSize > 0; d++){
+            int nextSize = 0;
+            int stackSize = 0;
+            for(int i = 0; i < layerSize; i++){
+                if(stackSize == stack.length){
+                    stack = Arrays.copyOf(stack, stackSize * 2);
+                }
+                stack[stackSize++] = layer[i];
+            }
+            while(stackSize > 0){
+                int state = stack[--stackSize];
+                int blank = state % cells;
+                int placement = state / cells;
+                Arrays.fill(occupant, -1);
+                for(int j = size - 1; j >= 0; j--){
+                    positions[j] = placement % cells;
+                    occupant[positions[j]] = j;
+                    placement /= cells;
+                }
+                int row = blank / width;
+                int col = blank % width;
+                for(int move = 0; move < 4; move++){
+                    int target;
+                    if(move == 0 && row > 0){
+                        target = blank - width;
+                    }else if(move == 1 && row < height - 1){
+                        target = blank + width;
+                    }else if(move == 2 && col > 0){
+                        target = blank - 1;
+                    }else if(move == 3 && col < width - 1){
+                        target = blank + 1;
+                    }else{
+                        continue;
+                    }
+                    int moved = occupant[target];
+                    int newPlacement = 0;
+                    for(int j = 0; j < size; j++){
+                        newPlacement = newPlacement * cells + (j == moved ? blank : positions[j]);
+                    }
+                    int newState = newPlacement * cells + target;
+                    if((distances[newState] & 0xFF) != UNSEEN){
+                        continue;
+                    }
+                    if(moved == -1){
+                        //free move, same layer
+                        distances[newState] = (byte) d;
+                        if(stackSize == stack.length){
+                            stack = Arrays.copyOf(stack, stackSize * 2);
+                        }
+                        stack[stackSize++] = newState;
+                    }else{
+                        if(nextSize == next.length){
+                            next = Arrays.copyOf(next, nextSize * 2);
+                        }
+                        next[nextSize++] = newState;
+                    }
+                }
+            }
+            //states queued for the next layer may have been reached for free in this one, or queued twice
+            layerSize = 0;
+            for(int i = 0; i < nextSize; i++){
+                if((distances[next[i]] & 0xFF) == UNSEEN){
+                    distances[next[i]] = (byte) (d + 1);
+                    next[layerSize++] = next[i];
+                }
+            }
+            int[] temp = layer;
+            layer = next;
+            next = temp;
+        }
+        for(int state = 0; state < distances.length; state++){
+            if((distances[state] & 0xFF) == UNSEEN){
+                distances[state] = 0; //impossible states (two tiles or a tile and the blank in a cell)
+            }
+        }
+        return distances;
+    }
+
+    private static int power(int base, int exponent){
+        int result = 1;
+        for(int i = 0; i < exponent; i++){
+            result *= base;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package puzzle;
+
+import java.util.SplittableRandom;
+
+/*
+Seeded random walks of the blank, used for randomizeState and for corpus files. A walk never takes back its previous
+move, so every step goes somewhere new instead of bouncing between two boards. The same seed always gives the same
+walks. A walk over a packed board allocates nothing: the board it ends on is left in board() and blank(). On a board
+of one cell the blank cannot move, and a walk leaves the board as it is.
+ */
+class Scrambler {
+    static final int NO_MOVE = -1;
+
+    private final SplittableRandom random;
+    private long board;
+    private int blank;
+
+    Scrambler(long seed){
+        random = new SplittableRandom(seed);
+    }
+
+    //a random direction the blank can move in from 'cell' other than back along 'previous' (a direction, or -1), and
+    //-1 if it cannot move at all
+    int direction(int[][] neighbours, int cell, int previous){
+        int reverse = previous == NO_MOVE ? NO_MOVE : previous ^ 1;
+        int choices = 0;
+        for(int d = 0; d < 4; d++){
+            if(neighbours[cell][d] >= 0 && d != reverse){
+                choices++;
+            }
+        }
+        if(choices == 0){
+            return reverse; //a dead end, only on boards one cell wide, or NO_MOVE on a board of one cell
+        }
+        int pick = random.nextInt(choices);
+        for(int d = 0; d < 4; d++){
+            if(neighbours[cell][d] >= 0 && d != reverse && pick-- == 0){
+                return d;
+            }
+        }
+        throw new IllegalStateException("No direction picked");
+    }
+
+    //walks the blank 'moves' steps from a packed board
+    void walk(int[][] neighbours, long start, int startBlank, int moves){
+        long board = start;
+        int blank = startBlank;
+        int previous = NO_MOVE;
+        for(int i = 0; i < moves; i++){
+            int d = direction(neighbours, blank, previous);
+            if(d == NO_MOVE){
+                break;
+            }
+            int target = neighbours[blank][d];
+            board = Main.slide(board, blank, target);
+            blank = target;
+            previous = d;
+        }
+        this.board = board;
+        this.blank = blank;
+    }
+
+    long board(){
+        return board;
+    }
+
+    int blank(){
+        return blank;
+    }
+
+    int nextInt(int bound){
+        return random.nextInt(bound);
+    }
+}
@@ -0,0 +1,141 @@
+package puzzle;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/*
+What the last solve of a session did. Every search calls start before it searches and finish when it is done, and fills
+in the counters in between. The searches count in local variables and store the totals at the end, so the metrics
+cost nothing inside the search loops.
+
+    generated      successors made, including ones that were dropped right away
+    expanded       nodes whose successors were generated
+    duplicates     successors dropped because their board had already been reached at least as cheaply
+    reopened       boards reached again on a cheaper path and added to the frontier again
+    peakFrontier   largest number of nodes waiting to be expanded
+    peakClosed     largest number of boards held in the reached set (or filter)
+ */
+class SearchMetrics {
+    static final int NOT_SOLVED = -1;
+    static final int NODE_LIMIT = -2;
+    static final int MEMORY_LIMIT = -3;
+    static final int DEADLINE = -4;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    String algorithm = "none";
+    long generated;
+    long expanded;
+    long duplicates;
+    long reopened;
+    long peakFrontier;
+    long peakClosed;
+    long cpuNanos; //the solving thread, plus any worker threads a parallel search adds
+    private int moves = NOT_SOLVED;
+    private long wallNanos;
+    private long wallStart;
+    private long cpuStart;
+    private long solves; //number of solves started, so a caller can tell whether a command ran one
+
+    void start(String algorithm){
+        this.algorithm = algorithm;
+        generated = 0;
+        expanded = 0;
+        duplicates = 0;
+        reopened = 0;
+        peakFrontier = 0;
+        peakClosed = 0;
+        cpuNanos = 0;
+        moves = NOT_SOLVED;
+        solves++;
+        wallStart = System.nanoTime();
+        cpuStart = threadCpuNanos();
+    }
+
+    //moves of the solution found, NOT_SOLVED, NODE_LIMIT, MEMORY_LIMIT or DEADLINE
+    void finish(int moves){
+        this.moves = moves;
+        wallNanos = System.nanoTime() - wallStart;
+        cpuNanos += threadCpuNanos() - cpuStart;
+    }
+
+    boolean solved(){
+        return moves >= 0;
+    }
+
+    long solves(){
+        return solves;
+    }
+
+    static long threadCpuNanos(){
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /*
+    The b* for which a uniform tree as deep as the solution holds as many nodes as were generated:
+    generated + 1 = 1 + b* + b*^2 + ... + b*^moves. Found by bisection, 0 when there is no solution to measure.
+     */
+    double branchingFactor(){
+        if(moves <= 0 || generated == 0){
+            return 0;
+        }
+        double low = 1;
+        double high = Math.max(2, generated);
+        for(int i = 0; i < 100; i++){
+            double middle = (low + high) / 2;
+            if(treeSize(middle) < generated + 1){
+                low = middle;
+            }else{
+                high = middle;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    private double treeSize(double b){
+        double size = 1;
+        double layer = 1;
+        for(int depth = 1; depth <= moves; depth++){
+            layer *= b;
+            size += layer;
+        }
+        return size;
+    }
+
+    private String result(){
+        if(moves >= 0){
+            return "solved";
+        }
+        switch(moves){
+            case NODE_LIMIT:
+                return "node limit";
+            case MEMORY_LIMIT:
+                return "memory limit";
+            case DEADLINE:
+                return "deadline";
+            default:
+                return "not solved";
+        }
+    }
+
+    String report(){
+        if(solves == 0){
+            return "No search has been run";
+        }
+        return String.format(Locale.ROOT, "Algorithm = %s, result = %s, moves = %d%n"
+                        + "Generated = %d, expanded = %d, duplicates = %d, reopened = %d%n"
+                        + "Peak frontier = %d, peak closed = %d, effective branching factor = %.3f%n"
+                        + "Wall time = %.3f ms, CPU time = %.3f ms",
+                algorithm, result(), Math.max(moves, 0), generated, expanded, duplicates, reopened, peakFrontier,
+                peakClosed, branchingFactor(), wallNanos / 1e6, cpuNanos / 1e6);
+    }
+
+    //one JSON object on one line, for JSON lines logs
+    String json(){
+        return String.format(Locale.ROOT, "{\"algorithm\":\"%s\",\"result\":\"%s\",\"moves\":%d,\"generated\":%d,"
+                        + "\"expanded\":%d,\"duplicates\":%d,\"reopened\":%d,\"peakFrontier\":%d,\"peakClosed\":%d,"
+                        + "\"branchingFactor\":%.4f,\"wallNanos\":%d,\"cpuNanos\":%d}",
+                algorithm, result(), Math.max(moves, 0), generated, expanded, duplicates, reopened, peakFrontier,
+                peakClosed, branchingFactor(), wallNanos, cpuNanos);
+    }
+}
@@ -0,0 +1,99 @@
+package puzzle;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+Solutions already found, so a solve repeated on the same start board prints the stored moves instead of searching
+again. A key is the board size, the packed start board and the solve command with its arguments, e.g.
+"3x3 876543210 solve A-star h2". The value is the move line as printed ("up left ..."). Only complete solutions are
+stored, never a partial path or a node limit. A hit prints "Moves = n" and that line only, which is why Main does not
+cache solves that print anything else.
+
+Entries are kept in least recently used order and the oldest is dropped once the cache holds 'capacity' entries.
+Every method is synchronized because the sessions of a batch share one cache.
+
+"cache save" writes one entry per line, key and moves separated by a tab, and "cache load" reads such a file back.
+ */
+class SolutionCache {
+    private final int capacity;
+    private final LinkedHashMap<String, String> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    SolutionCache(int capacity){
+        this.capacity = capacity;
+        //access order: get moves an entry to the back, so the front is the least recently used
+        entries = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest){
+                if(size() > SolutionCache.this.capacity){
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    static String key(int width, int height, long board, String command){
+        return width + "x" + height + " " + Long.toHexString(board) + " " + command;
+    }
+
+    //the stored moves, or null. Counts a hit or a miss.
+    synchronized String get(String key){
+        String moves = entries.get(key);
+        if(moves == null){
+            misses++;
+        }else{
+            hits++;
+        }
+        return moves;
+    }
+
+    synchronized void put(String key, String moves){
+        entries.put(key, moves);
+    }
+
+    synchronized void clear(){
+        entries.clear();
+    }
+
+    synchronized String report(){
+        long lookups = hits + misses;
+        return String.format(Locale.ROOT, "Cache entries = %d of %d, hits = %d, misses = %d, hit rate = %.1f%%, evictions = %d",
+                entries.size(), capacity, hits, misses, lookups == 0 ? 0.0 : hits * 100.0 / lookups, evictions);
+    }
+
+    //writes the entries from least to most recently used, so loading the file restores the same order
+    synchronized void save(Path file) throws IOException {
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+            for(Map.Entry<String, String> entry : entries.entrySet()){
+                writer.write(entry.getKey());
+                writer.write('\t');
+                writer.write(entry.getValue());
+                writer.newLine();
+            }
+        }
+    }
+
+    //adds the entries of a file written by save, returns how many were read
+    synchronized int load(Path file) throws IOException {
+        int loaded = 0;
+        for(String line : Files.readAllLines(file, StandardCharsets.UTF_8)){
+            int tab = line.indexOf('\t');
+            if(tab > 0){
+                entries.put(line.substring(0, tab), line.substring(tab + 1));
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,246 @@
+package puzzle;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+A resident solver, started with "java puzzle.Main --serve <port or socket file> [<cache entries>]". A port listens on
+TCP on the loopback address only, anything else is the path of a Unix domain socket.
+
+Every connection is a session of its own (a Main, as for a command file) and sends the usual commands, one per line.
+After the output of each command the server writes a line holding only "." so a client knows the answer is complete.
+The pattern databases and the oracle's distance table are shared by the whole process, so only the first client to
+use them pays for loading them. With a cache size every session starts with one shared solution cache.
+
+Two commands are answered by the server instead of the session: "latency" prints percentiles of the time taken by
+every command of every connection so far, and "shutdown" stops the server once the connections still open are done.
+At most SESSIONS connections are served at a time, one thread each, and each session gets an equal share of the
+default memory budget (see "maxMemory"), so the searches of all of them together stay within it. Further connections
+wait for one of those to hang up.
+
+Any local user can connect to the TCP port, so its sessions refuse the commands that name a file (batch, corpus,
+"stats log", "cache save" and "cache load") and "shutdown", which would otherwise read, write and stop as the server's
+user. The Unix domain socket accepts every command, so no other user may reach it: it is bound in a new directory only
+its owner can enter, made readable and writable by its owner only, and then moved to its path. A file already at the
+path is only replaced if it is a socket, left over from a server that was killed.
+ */
+class SolverServer {
+    static final String END_OF_REPLY = ".";
+    private static final int SESSIONS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final ServerSocketChannel server;
+    private final Path socketFile; //null for TCP
+    private final SolutionCache cache; //null without a cache size
+    private final ExecutorService connections = Executors.newFixedThreadPool(SESSIONS);
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private SolverServer(String address, int cacheEntries) throws IOException {
+        if(address.chars().allMatch(Character::isDigit)){
+            server = ServerSocketChannel.open(StandardProtocolFamily.INET);
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address)));
+            socketFile = null;
+        }else{
+            socketFile = Paths.get(address).toAbsolutePath();
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            try{
+                bindPrivately(server, socketFile);
+            }catch (IOException | RuntimeException e){
+                server.close();
+                throw e;
+            }
+        }
+        cache = cacheEntries > 0 ? new SolutionCache(cacheEntries) : null;
+    }
+
+    //binds the socket where only its owner can reach it, then moves it to 'file'
+    private static void bindPrivately(ServerSocketChannel server, Path file) throws IOException {
+        removeStaleSocket(file);
+        Path directory;
+        try{
+            directory = Files.createTempDirectory(file.getParent(), ".solver",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }catch (UnsupportedOperationException e){
+            directory = Files.createTempDirectory(file.getParent(), ".solver"); //not a POSIX file system
+        }
+        Path bound = directory.resolve("socket");
+        try{
+            server.bind(UnixDomainSocketAddress.of(bound));
+            try{
+                Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+            }catch (UnsupportedOperationException e){
+                //not a POSIX file system, the socket keeps the permissions it was created with
+            }
+            Files.move(bound, file, StandardCopyOption.ATOMIC_MOVE);
+        }finally{
+            Files.deleteIfExists(bound);
+            Files.delete(directory);
+        }
+    }
+
+    //a socket left over from a server that was killed is deleted, any other file stops the server from starting
+    private static void removeStaleSocket(Path file) throws IOException {
+        BasicFileAttributes attributes;
+        try{
+            attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }catch (NoSuchFileException e){
+            return;
+        }
+        if(!attributes.isOther()){
+            throw new IOException(file + " already exists and is not a socket, not replacing it");
+        }
+        Files.delete(file);
+    }
+
+    static void serve(String address, int cacheEntries) throws IOException {
+        SolverServer solverServer = new SolverServer(address, cacheEntries);
+        //a Unix domain socket was bound under another name and moved
+        System.out.println("Listening on " + (solverServer.socketFile != null ? solverServer.socketFile
+                : solverServer.server.getLocalAddress()));
+        solverServer.acceptConnections();
+    }
+
+    private void acceptConnections() throws IOException {
+        try{
+            while(true){
+                SocketChannel connection = server.accept();
+                connections.execute(() -> serve(connection));
+            }
+        }catch (ClosedChannelException e){
+            //shutdown closed the server channel
+        }finally{
+            connections.shutdown();
+            try{
+                connections.awaitTermination(1, TimeUnit.MINUTES);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            if(socketFile != null){
+                Files.deleteIfExists(socketFile);
+            }
+        }
+    }
+
+    //runs the commands of one connection on a session of its own until the client hangs up
+    private void serve(SocketChannel connection){
+        try(connection;
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(connection), StandardCharsets.UTF_8));
+            PrintStream out = new PrintStream(new BufferedOutputStream(Channels.newOutputStream(connection), 1 << 16), false,
+                    StandardCharsets.UTF_8);
+            Main session = new Main(out)){
+            session.shareMemory(SESSIONS);
+            if(cache != null){
+                session.shareCache(cache);
+            }
+            if(socketFile == null){
+                session.denyFileAccess();
+            }
+            String line;
+            long lineNumber = 0;
+            while((line = in.readLine()) != null){
+                lineNumber++;
+                if(line.isBlank()){
+                    continue;
+                }
+                long start = System.nanoTime();
+                if(line.trim().equals("latency")){
+                    out.println(latencies.report());
+                }else if(line.trim().equals("shutdown")){
+                    if(socketFile != null){
+                        server.close();
+                    }else{
+                        out.println("Error on line " + lineNumber + ": shutdown is only accepted on the Unix domain socket");
+                    }
+                }else{
+                    session.executeLine(line, lineNumber);
+                }
+                out.println(END_OF_REPLY);
+                out.flush();
+                latencies.record(System.nanoTime() - start);
+            }
+        }catch (IOException e){
+            //the client went away, its session goes with it
+        }
+    }
+
+    /*
+    Counts of command times in logarithmic buckets: 16 buckets for every power of two of nanoseconds, so a percentile
+    is read to within about 6%. Recording is one atomic increment, so every connection thread writes to it freely.
+     */
+    private static class LatencyHistogram {
+        private static final int SUB_BUCKETS = 16;
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+
+        private void record(long nanos){
+            counts.incrementAndGet(bucket(Math.max(nanos, 1)));
+        }
+
+        private static int bucket(long nanos){
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            if(exponent < 4){
+                return (int) nanos; //below 16 ns every value has its own bucket
+            }
+            int fraction = (int) ((nanos >>> (exponent - 4)) & (SUB_BUCKETS - 1));
+            return (exponent - 3) * SUB_BUCKETS + fraction;
+        }
+
+        //the largest value that lands in the bucket
+        private static long upperBound(int bucket){
+            if(bucket < SUB_BUCKETS){
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + 3;
+            long fraction = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + fraction + 1) << (exponent - 4)) - 1;
+        }
+
+        private String report(){
+            long[] snapshot = new long[counts.length()];
+            long total = 0;
+            for(int i = 0; i < snapshot.length; i++){
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            if(total == 0){
+                return "No requests yet";
+            }
+            double[] percentiles = {50, 90, 99, 99.9, 100};
+            String[] names = {"p50", "p90", "p99", "p99.9", "max"};
+            StringBuilder sb = new StringBuilder("Requests = " + total);
+            for(int i = 0; i < percentiles.length; i++){
+                long rank = Math.max(1, (long) Math.ceil(total * percentiles[i] / 100));
+                long seen = 0;
+                int bucket = 0;
+                while(seen + snapshot[bucket] < rank){
+                    seen += snapshot[bucket++];
+                }
+                sb.append(String.format(Locale.ROOT, ", %s = %.3f ms", names[i], upperBound(bucket) / 1e6));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package puzzle;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Every solver against the oracle's distance table on a seeded corpus of 3x3 boards. The optimal searches have to print
+exactly the oracle's number of moves, the bounded suboptimal ones no more than their bound allows, and every path
+printed has to lead from the start board to the final state.
+ */
+class SolverTest {
+    private static final String FINAL_STATE = "b12 345 678 ";
+    private static final long FINAL_BOARD = Main.pack(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8});
+    private static final DistanceTable ORACLE = new DistanceTable(FINAL_BOARD);
+    private static final long[] CORPUS = corpus(40, 2024);
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final Main session = new Main(new PrintStream(buffer, true));
+
+    @Test
+    void aStarIsOptimal() throws IOException {
+        for(String heuristic : new String[] {"h1", "h2", "h3"}){
+            assertOptimal("solve A-star " + heuristic);
+        }
+    }
+
+    @Test
+    void aStarOnTheHashtableClosedSetIsOptimal() throws IOException {
+        run("closedSet hashtable");
+        assertOptimal("solve A-star h2");
+    }
+
+    @Test
+    void oracleIsOptimal() throws IOException {
+        assertOptimal("solve oracle");
+    }
+
+    @Test
+    void idaStarIsOptimal() throws IOException {
+        assertOptimal("solve IDA* h2");
+    }
+
+    @Test
+    void paStarIsOptimalAndTerminates() throws IOException {
+        assertOptimal("solve PA-star h2 1");
+        assertOptimal("solve PA-star h2 3");
+    }
+
+    @Test
+    void bidirectionalIsOptimal() throws IOException {
+        assertOptimal("solve bidirectional");
+    }
+
+    //the limit holds for every node generated, not only between layers
+    @Test
+    void bidirectionalStopsAtMaxNodes() throws IOException {
+        run("maxNodes 5000");
+        String output = run("setState 867 254 3b1") + run("solve bidirectional");
+        assertEquals("Error: Max Nodes is too small for given problem" + System.lineSeparator(), output);
+    }
+
+    @Test
+    void weightedAStarStaysWithinItsWeight() throws IOException {
+        for(long board : CORPUS){
+            String output = solve(board, "solve WA-star h2 2");
+            int optimal = ORACLE.distance(board);
+            int moves = movesOf(output);
+            assertTrue(moves >= optimal && moves <= 2 * optimal, state(board) + ": " + moves + " moves, optimal " + optimal);
+            assertLeadsHome(board, output);
+        }
+    }
+
+    //every pass keeps its bound, no pass prints a longer path than the one before, and the last one is optimal
+    @Test
+    void araStarTightensToTheOptimum() throws IOException {
+        for(long board : CORPUS){
+            String output = solve(board, "solve ARA-star h2 3 0.5");
+            int optimal = ORACLE.distance(board);
+            int previous = Integer.MAX_VALUE;
+            String[] lines = output.split(System.lineSeparator());
+            for(int i = 0; i < lines.length; i++){
+                if(lines[i].startsWith("Weight = ")){
+                    double weight = Double.parseDouble(lines[i].substring(9).split(" ")[0]);
+                    int moves = Integer.parseInt(lines[i + 1].substring(8));
+                    assertTrue(moves <= weight * optimal && moves <= previous,
+                            state(board) + ": " + moves + " moves at weight " + weight + ", optimal " + optimal);
+                    previous = moves;
+                }
+            }
+            if(optimal > 0){
+                assertEquals(optimal, previous, state(board));
+            }
+            assertLeadsHome(board, output);
+        }
+    }
+
+    @Test
+    void beamPathsLeadHome() throws IOException {
+        for(long board : CORPUS){
+            String output = solve(board, "solve beam 4");
+            if(!output.startsWith("No solution")){
+                assertTrue(movesOf(output) >= ORACLE.distance(board), state(board));
+                assertLeadsHome(board, output);
+            }
+        }
+    }
+
+    //the beam is cut to k every layer, which solves and misses other boards than the first version did
+    @Test
+    void narrowBeamKeepsItsLayerSemantics() throws IOException {
+        assertEquals(10, movesOf(run("setState 142 6b7 835") + run("solve beam 2")));
+        String output = run("setState 142 763 8b5") + run("solve beam 2");
+        assertEquals("No solution - local minima found." + System.lineSeparator(), output);
+    }
+
+    //a board and its transpose share one cache entry, the second one gets the stored path mirrored
+    @Test
+    void cachedTransposeReplaysAValidPath() throws IOException {
+        run("cache 100");
+        for(long board : CORPUS){
+            long transposed = transpose(board);
+            solve(board, "solve A-star h2");
+            String output = solve(transposed, "solve A-star h2");
+            assertEquals(ORACLE.distance(transposed), movesOf(output), state(transposed));
+            assertLeadsHome(transposed, output);
+        }
+        String stats = run("cache stats");
+        assertTrue(stats.contains("hits = " + CORPUS.length + ","), stats);
+    }
+
+    //beam search is not symmetric under the transpose, so a cached path of one board must not answer the other
+    @Test
+    void cachedBeamAnswersOnlyItsOwnBoard() throws IOException {
+        String fresh = run("setState 312 b65 748") + run("solve beam 1");
+        run("cache 100");
+        run("setState 1b5 324 678");
+        run("solve beam 1");
+        run("setState 312 b65 748");
+        assertEquals(fresh, run("solve beam 1"));
+    }
+
+    //weighted A* is not symmetric under the transpose either, a cached answer has to be the one a fresh solve gives
+    @Test
+    void cachedWeightedAStarMatchesAFreshSolve() throws IOException {
+        for(long board : CORPUS){
+            String fresh = solve(transpose(board), "solve WA-star h2 3");
+            run("cache 100");
+            solve(board, "solve WA-star h2 3");
+            assertEquals(fresh, solve(transpose(board), "solve WA-star h2 3"), state(transpose(board)));
+            run("cache off");
+        }
+    }
+
+    private void assertOptimal(String command) throws IOException {
+        for(long board : CORPUS){
+            String output = solve(board, command);
+            assertEquals(ORACLE.distance(board), movesOf(output), command + " on " + state(board));
+            assertLeadsHome(board, output);
+        }
+    }
+
+    //plays the last path printed on a session of its own and checks it ends on the final state
+    private static void assertLeadsHome(long board, String output) throws IOException {
+        String[] lines = output.split(System.lineSeparator(), -1);
+        int at = lines.length - 1;
+        while(!lines[at].startsWith("Moves = ")){
+            at--;
+        }
+        ByteArrayOutputStream replayed = new ByteArrayOutputStream();
+        Main replay = new Main(new PrintStream(replayed, true));
+        replay.execute("setState " + state(board));
+        for(String move : lines[at + 1].trim().split(" ")){
+            if(!move.isEmpty()){
+                replay.execute("move " + move);
+            }
+        }
+        replay.execute("printState");
+        assertEquals(FINAL_STATE + System.lineSeparator(), replayed.toString(), "path from " + state(board));
+    }
+
+    //moves of the last path printed
+    private static int movesOf(String output){
+        int at = output.lastIndexOf("Moves = ");
+        assertTrue(at >= 0, output);
+        return Integer.parseInt(output.substring(at + 8, output.indexOf(System.lineSeparator(), at)));
+    }
+
+    private String solve(long board, String command) throws IOException {
+        run("setState " + state(board));
+        return run(command);
+    }
+
+    private String run(String command) throws IOException {
+        buffer.reset();
+        session.execute(command);
+        return buffer.toString();
+    }
+
+    //seeded random walks from the final state, from 0 to well past the deepest 3x3 board in length
+    private static long[] corpus(int count, long seed){
+        Scrambler walks = new Scrambler(seed);
+        int[][] neighbours = new Main(new PrintStream(new ByteArrayOutputStream())).neighbours;
+        long[] boards = new long[count];
+        for(int i = 0; i < count; i++){
+            walks.walk(neighbours, FINAL_BOARD, 0, i * 2);
+            boards[i] = walks.board();
+        }
+        return boards;
+    }
+
+    private static long transpose(long board){
+        long result = 0;
+        for(int cell = 0; cell < 9; cell++){
+            int tile = (int) ((board >>> (4 * cell)) & 0xF);
+            result |= (long) ((tile % 3) * 3 + tile / 3) << (4 * ((cell % 3) * 3 + cell / 3));
+        }
+        return result;
+    }
+
+    private static String state(long board){
+        StringBuilder sb = new StringBuilder();
+        for(int cell = 0; cell < 9; cell++){
+            if(cell > 0 && cell % 3 == 0){
+                sb.append(' ');
+            }
+            int tile = (int) ((board >>> (4 * cell)) & 0xF);
+            sb.append(tile == 0 ? "b" : String.valueOf(tile));
+        }
+        return sb.toString();
+    }
+}
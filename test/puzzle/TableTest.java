@@ -0,0 +1,126 @@
+package puzzle;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//the precomputed tables: the oracle's ranking of 3x3 boards and the pattern database file
+class TableTest {
+    private static final long FINAL_BOARD = Main.pack(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8});
+    private static final int[][] GROUPS = {{1, 2, 3, 4}, {5, 6, 7, 8}};
+
+    //every reachable board lands in exactly one layer, so index and board are inverses over all 181,440 of them
+    @Test
+    void distanceTableRanksEveryBoardOnce(){
+        DistanceTable table = new DistanceTable(FINAL_BOARD);
+        assertEquals(0, table.distance(FINAL_BOARD));
+        int total = 0;
+        for(int depth = 0; depth <= 31; depth++){
+            long[] layer = table.sample(depth, DistanceTable.STATES, new SplittableRandom(depth));
+            for(long board : layer){
+                assertEquals(depth, table.distance(board), Long.toHexString(board));
+            }
+            total += layer.length;
+        }
+        assertEquals(DistanceTable.STATES, total);
+    }
+
+    @Test
+    void distanceTableSolvesInItsDistance(){
+        DistanceTable table = new DistanceTable(FINAL_BOARD);
+        SplittableRandom random = new SplittableRandom(7);
+        int[][] neighbours = Main.neighbourTable(3, 3);
+        for(int depth = 1; depth <= 31; depth++){
+            for(long board : table.sample(depth, 10, random)){
+                int[] moves = table.solve(board);
+                assertEquals(depth, moves.length);
+                long at = board;
+                for(int d : moves){
+                    int blank = 0;
+                    while(((at >>> (4 * blank)) & 0xF) != 0){
+                        blank++;
+                    }
+                    at = Main.slide(at, blank, neighbours[blank][d]);
+                }
+                assertEquals(FINAL_BOARD, at, Long.toHexString(board));
+            }
+        }
+    }
+
+    /*
+    h3 against the exact distances of all 181,440 boards: it never overestimates, and one move changes it by at most
+    one, so A* on h3 never has to reopen a board
+     */
+    @Test
+    void patternDatabaseIsAdmissibleAndConsistent() throws IOException {
+        Path directory = Files.createTempDirectory("pdb");
+        Path file = directory.resolve("pdb-3x3.bin");
+        try{
+            PatternDatabase database = PatternDatabase.load(file, 3, 3, GROUPS);
+            DistanceTable table = new DistanceTable(FINAL_BOARD);
+            int[][] neighbours = Main.neighbourTable(3, 3);
+            for(int depth = 0; depth <= 31; depth++){
+                for(long board : table.sample(depth, DistanceTable.STATES, new SplittableRandom(depth))){
+                    int h = database.lookup(board);
+                    assertTrue(h <= depth, Long.toHexString(board) + ": h3 = " + h + ", distance = " + depth);
+                    int blank = 0;
+                    while(((board >>> (4 * blank)) & 0xF) != 0){
+                        blank++;
+                    }
+                    for(int target : neighbours[blank]){
+                        if(target >= 0){
+                            long next = Main.slide(board, blank, target);
+                            assertTrue(Math.abs(h - database.lookup(next)) <= 1,
+                                    Long.toHexString(board) + " to " + Long.toHexString(next));
+                        }
+                    }
+                }
+            }
+        }finally{
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    //a database mapped from the file it was just built into gives the same admissible values as the build
+    @Test
+    void patternDatabaseLoadsWhatItBuilt() throws IOException {
+        Path directory = Files.createTempDirectory("pdb");
+        Path file = directory.resolve("pdb-3x3.bin");
+        try{
+            PatternDatabase built = PatternDatabase.load(file, 3, 3, GROUPS);
+            PatternDatabase mapped = PatternDatabase.load(file, 3, 3, GROUPS);
+            DistanceTable table = new DistanceTable(FINAL_BOARD);
+            assertEquals(0, mapped.lookup(FINAL_BOARD));
+            SplittableRandom random = new SplittableRandom(11);
+            for(int depth = 1; depth <= 31; depth++){
+                for(long board : table.sample(depth, 20, random)){
+                    int[] positions = new int[9];
+                    for(int cell = 0; cell < 9; cell++){
+                        positions[(int) ((board >>> (4 * cell)) & 0xF)] = cell;
+                    }
+                    int h = mapped.lookup(board);
+                    assertEquals(built.lookup(board), h);
+                    assertEquals(h, mapped.lookup(positions));
+                    assertTrue(h <= depth, Long.toHexString(board) + ": h3 = " + h + ", distance = " + depth);
+                }
+            }
+            boolean rejected = false;
+            try{
+                PatternDatabase.load(file, 3, 3, new int[][] {{1, 2, 3}, {4, 5, 6, 7, 8}});
+            }catch (IOException e){
+                rejected = true;
+            }
+            assertTrue(rejected, "a database built for other groups was loaded");
+        }finally{
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+}